@@ -9,18 +9,29 @@ import morris.ai.CpuStrategy;
 import morris.ai.DivideAndConquerStrategy;
 import morris.ai.DpStrategy;
 import morris.ai.GreedyStrategy;
+import morris.ai.MctsStrategy;
+import morris.metrics.MetricsExporter;
+import morris.metrics.MetricsRegistry;
 import morris.model.Board;
 import morris.model.Move;
 import morris.model.Player;
+import morris.model.PositionHistory;
+import morris.model.Rules;
 import morris.util.Constants;
 
 public class ConsoleMain {
     private final Scanner in = new Scanner(System.in);
     private final Board board = new Board();
+    private final PositionHistory history = new PositionHistory();
     private CpuStrategy cpuStrategy;
 
     public static void main(String[] args) {
-        new ConsoleMain().run();
+        MetricsExporter.startFromSystemProperties();
+        try {
+            new ConsoleMain().run();
+        } finally {
+            MetricsExporter.stop();
+        }
     }
 
     private void run() {
@@ -28,6 +39,9 @@ public class ConsoleMain {
         println("Nine Men's Morris (Console)");
         println("You are H, CPU is C. Nodes are numbered 1..24.");
         printBoard();
+        MetricsRegistry.global().gameStarted();
+        history.push(board, Player.HUMAN.code());
+        cpuStrategy.setGameHistory(history);
 
         Player current = Player.HUMAN;
 
@@ -35,24 +49,30 @@ public class ConsoleMain {
             if (current == Player.HUMAN) {
                 if (!hasAnyLegalMove(Player.HUMAN)) {
                     println("You lose: no legal moves.");
+                    MetricsRegistry.global().gameFinished("cpu_win");
                     break;
                 }
                 humanTurn();
                 if (isCpuDefeated()) {
                     println("You win!");
+                    MetricsRegistry.global().gameFinished("human_win");
                     break;
                 }
+                if (isDraw(Player.CPU)) break;
                 current = Player.CPU;
             } else {
                 if (!hasAnyLegalMove(Player.CPU)) {
                     println("You win: CPU has no legal moves.");
+                    MetricsRegistry.global().gameFinished("human_win");
                     break;
                 }
                 cpuTurn();
                 if (isHumanDefeated()) {
                     println("You lose.");
+                    MetricsRegistry.global().gameFinished("cpu_win");
                     break;
                 }
+                if (isDraw(Player.HUMAN)) break;
                 current = Player.HUMAN;
             }
 
@@ -66,7 +86,8 @@ public class ConsoleMain {
         println("2) Divide & Conquer");
         println("3) DP (recommended)");
         println("4) Backtracking");
-        int ch = readIntInRange("Enter 1-4: ", 1, 4);
+        println("5) MCTS");
+        int ch = readIntInRange("Enter 1-5: ", 1, 5);
         switch (ch) {
             case 1:
                 cpuStrategy = new GreedyStrategy();
@@ -80,6 +101,10 @@ public class ConsoleMain {
                 cpuStrategy = new DpStrategy();
                 println("Using DP.");
                 break;
+            case 5:
+                cpuStrategy = new MctsStrategy();
+                println("Using MCTS.");
+                break;
             case 4:
             default:
                 cpuStrategy = new BacktrackingStrategy();
@@ -97,13 +122,15 @@ public class ConsoleMain {
             println("You placed at " + nodeName(to) + ".");
             if (board.formsMill(Player.HUMAN.code(), to)) {
                 int rem = readRemoval(Player.CPU.code());
-                board.getCells()[rem] = Constants.EMPTY;
-                println("You removed CPU piece at " + nodeName(rem) + ".");
+                if (rem != -1) {
+                    board.removePiece(rem);
+                    println("You removed CPU piece at " + nodeName(rem) + ".");
+                }
             }
             return;
         }
 
-        boolean flying = board.countPieces(Player.HUMAN.code()) == 3;
+        boolean flying = board.isFlying(Player.HUMAN.code());
         int from = readSource(flying);
         int to = readDestination(from, flying);
 
@@ -113,13 +140,16 @@ public class ConsoleMain {
 
         if (board.formsMill(Player.HUMAN.code(), to)) {
             int rem = readRemoval(Player.CPU.code());
-            board.getCells()[rem] = Constants.EMPTY;
-            println("You removed CPU piece at " + nodeName(rem) + ".");
+            if (rem != -1) {
+                board.removePiece(rem);
+                println("You removed CPU piece at " + nodeName(rem) + ".");
+            }
         }
     }
 
     private void cpuTurn() {
-        Move best = cpuStrategy.getBestMove(board, Player.CPU, Player.HUMAN);
+        // complete move: applyMove also takes the piece the strategy chose to remove
+        Move best = cpuStrategy.search(board, Player.CPU, Player.HUMAN).move;
         if (best == null) {
             println("CPU has no move.");
             return;
@@ -132,13 +162,8 @@ public class ConsoleMain {
             println("CPU moved " + nodeName(best.from) + " -> " + nodeName(best.to) + ".");
         }
 
-        if (board.formsMill(Player.CPU.code(), best.to)) {
-            List<Integer> removals = board.candidateRemovals(Player.HUMAN.code());
-            if (!removals.isEmpty()) {
-                int rem = removals.get(0);
-                board.getCells()[rem] = Constants.EMPTY;
-                println("CPU formed a mill and removed your piece at " + nodeName(rem) + ".");
-            }
+        if (best.removed != -1) {
+            println("CPU formed a mill and removed your piece at " + nodeName(best.removed) + ".");
         }
     }
 
@@ -202,22 +227,30 @@ public class ConsoleMain {
     }
 
     private boolean isPlacementPhase() {
-        List<Move> moves = board.generateLegalMoves(Player.HUMAN.code());
-        return moves.stream().anyMatch(m -> m.from == -1);
+        return board.isPlacementPhase();
     }
 
     private boolean hasAnyLegalMove(Player p) {
-        return !board.generateLegalMoves(p.code()).isEmpty();
+        return !Rules.isGameOver(board, p.code());
     }
 
     private boolean isCpuDefeated() {
-        if (isPlacementPhase()) return false;
-        return board.countPieces(Player.CPU.code()) <= 2 || !hasAnyLegalMove(Player.CPU);
+        return Rules.isGameOver(board, Player.CPU.code());
     }
 
     private boolean isHumanDefeated() {
-        if (isPlacementPhase()) return false;
-        return board.countPieces(Player.HUMAN.code()) <= 2 || !hasAnyLegalMove(Player.HUMAN);
+        return Rules.isGameOver(board, Player.HUMAN.code());
+    }
+
+    // records the finished turn and reports a repetition or no-capture draw
+    private boolean isDraw(Player toMove) {
+        history.push(board, toMove.code());
+        String reason = history.drawReason();
+        if (reason == null) return false;
+        printBoard();
+        println("Draw by " + reason + ".");
+        MetricsRegistry.global().gameFinished("draw");
+        return true;
     }
 
     private void printBoard() {
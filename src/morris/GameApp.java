@@ -4,10 +4,12 @@ import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import morris.controller.GameController;
+import morris.metrics.MetricsExporter;
 
 public class GameApp extends Application {
     @Override
     public void start(Stage stage) {
+        MetricsExporter.startFromSystemProperties();
         GameController controller = new GameController();
         Scene scene = new Scene(controller.getRoot(), 1100, 760);
         stage.setTitle("Nine Men's Morris - Human vs CPU");
@@ -15,6 +17,11 @@ public class GameApp extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        MetricsExporter.stop();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
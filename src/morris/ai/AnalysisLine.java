@@ -0,0 +1,45 @@
+package morris.ai;
+
+import morris.model.Move;
+
+import java.util.List;
+
+/**
+ * One entry of a multi-PV analysis: a complete move (with the piece it
+ * removes, if it closes a mill), its searched score for the side to move and
+ * the expected continuation starting with the move itself.
+ */
+public class AnalysisLine {
+    public final Move move;
+    public final int score;
+    public final List<Move> pv;
+
+    public AnalysisLine(Move move, int score, List<Move> pv) {
+        this.move = move;
+        this.score = score;
+        this.pv = List.copyOf(pv);
+    }
+
+    // "P4->P5 xP12", 1-based points as in the UI
+    public static String describe(Move m) {
+        StringBuilder sb = new StringBuilder();
+        if (m.from != -1) sb.append('P').append(m.from + 1).append("->");
+        sb.append('P').append(m.to + 1);
+        if (m.removed != -1) sb.append(" xP").append(m.removed + 1);
+        return sb.toString();
+    }
+
+    public String pvText() {
+        StringBuilder sb = new StringBuilder();
+        for (Move m : pv) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(describe(m));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return describe(move) + " (" + score + "): " + pvText();
+    }
+}
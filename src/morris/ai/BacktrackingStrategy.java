@@ -1,11 +1,16 @@
 package morris.ai;
 
-import java.util.ArrayList;
-import java.util.List;
 import morris.model.Board;
 import morris.model.Move;
+import morris.model.MoveList;
 import morris.model.Player;
-import morris.util.Constants;
+import morris.model.PositionHistory;
+import morris.model.Rules;
+import morris.model.ThreatMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 //-------------------------BacktrackingImplementation-------------------------------------
 
@@ -27,18 +32,47 @@ import morris.util.Constants;
  */
 public class BacktrackingStrategy implements CpuStrategy {
 
+    private static final int TIME_CHECK_INTERVAL = 256;
+
     private int maxDepth = 4;
+    private int placementDepth = 2;
+    // search budget per move, 0 = unlimited; see Difficulty
+    private long nodeLimit;
+    private long timeLimitMillis;
+    // root moves are compared with a uniform random offset in [-noise, noise] added to their scores
+    private int noise;
+    private Random random = new Random();
+    private long deadline;
+    // budgetExhausted calls, the clock is read every TIME_CHECK_INTERVAL of them
+    private long budgetChecks;
+    private boolean budgetArmed;
+    private boolean outOfBudget;
+    private int rootBestChild;
+    private int rootBestScore;
+
     private int cpuCode;
     private int humanCode;
-    private int nodesVisited;
-
-    private static final int WIN_SCORE = 100_000;
-    private static final int MILL_VALUE = 80;
-    private static final int PIECE_VALUE = 120;
-    private static final int MOBILITY_WEIGHT = 8;
-    private static final int MILL_POTENTIAL = 35;
-    private static final int BLOCK_THREAT_VALUE = 50;
-    private static final int CLUSTER_VALUE = 6;
+    private SearchStats stats = new SearchStats();
+
+    private final MoveStack stack = new MoveStack();
+    // principal variations, only maintained while analyze() runs
+    private final PvTable pv = new PvTable();
+    private boolean trackPv;
+    static final int WIN_SCORE = LinearEvaluator.WIN_SCORE;
+    static final int DRAW_SCORE = 0;
+
+    // positions of the game so far (may be null) and of the game plus the searched line
+    private PositionHistory gameHistory;
+    private final PositionHistory history = new PositionHistory();
+
+    private Evaluator evaluator;
+    // set when the evaluator follows the search's make/unmake (NNUE)
+    private IncrementalEvaluator incremental;
+    // ordering and capture scores; last-ply leaves (filled while 'batch' is in use).
+    // Leaves and captures are only batch-scored while the evaluator is a LinearEvaluator.
+    private BatchEvaluator batch;
+    private BatchEvaluator leaves;
+    private boolean batchLeaves;
 
     private static class TraceContext {
         private final StringBuilder out = new StringBuilder();
@@ -61,305 +95,492 @@ public class BacktrackingStrategy implements CpuStrategy {
     }
 
 
+    // uses the -Dmorris.nnue network when one is configured, the linear evaluation otherwise
+    public BacktrackingStrategy() {
+        NnueNetwork net = NnueNetwork.global();
+        if (net != null) setEvaluator(new NnueEvaluator(net));
+        else setWeights(EvalWeights.global());
+    }
+
+    public void setWeights(EvalWeights weights) {
+        setEvaluator(LinearEvaluator.backtracking(weights));
+    }
+
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        this.incremental = evaluator instanceof IncrementalEvaluator ? (IncrementalEvaluator) evaluator : null;
+        LinearEvaluator linear = evaluator instanceof LinearEvaluator
+                ? (LinearEvaluator) evaluator
+                : LinearEvaluator.backtracking(EvalWeights.global());
+        batchLeaves = evaluator instanceof LinearEvaluator;
+        if (batch == null) {
+            batch = new BatchEvaluator(linear);
+            leaves = new BatchEvaluator(linear);
+        } else {
+            batch.setEvaluator(linear);
+            leaves.setEvaluator(linear);
+        }
+    }
+
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = Math.max(1, maxDepth); }
+    // depth cap while pieces are still being placed (the branching factor is highest there)
+    public int getPlacementDepth() { return placementDepth; }
+    public void setPlacementDepth(int placementDepth) { this.placementDepth = Math.max(1, placementDepth); }
+    public long getNodeLimit() { return nodeLimit; }
+    public void setNodeLimit(long nodeLimit) { this.nodeLimit = Math.max(0, nodeLimit); }
+    public long getTimeLimitMillis() { return timeLimitMillis; }
+    public void setTimeLimitMillis(long timeLimitMillis) { this.timeLimitMillis = Math.max(0, timeLimitMillis); }
+    public int getNoise() { return noise; }
+    public void setNoise(int noise) { this.noise = Math.max(0, noise); }
+    public void setSeed(long seed) { this.random = new Random(seed); }
+
+    @Override
+    public void setGameHistory(PositionHistory history) {
+        this.gameHistory = history;
+    }
+
     @Override
     public Move getBestMove(Board board, Player cpu, Player human) {
         this.cpuCode = cpu.code();
         this.humanCode = human.code();
-        this.nodesVisited = 0;
-
-        List<Move> legalMoves = board.generateLegalMoves(cpuCode);
+        this.stats = new SearchStats();
+
+        // search mutates a private copy with make/unmake
+        Board state = board.clone();
+        if (incremental != null) incremental.reset(state);
+        resetHistory(state);
+        MoveList legalMoves = stack.moves(0);
+        state.generateLegalMoves(cpuCode, legalMoves);
         if (legalMoves.isEmpty()) return null;
 
-        // Tactical fast path: immediate mill wins are preferred before deeper search.
-        Move immediateMill = findImmediateMillMove(board, legalMoves, cpuCode, humanCode);
-        if (immediateMill != null) return immediateMill;
+        // Tactical shortcuts; noisy (weakened) play leaves every decision to the search
+        if (noise == 0) {
+            // Tactical fast path: immediate mill wins are preferred before deeper search.
+            int immediateMill = findImmediateMillMove(state, legalMoves, cpuCode, humanCode);
+            if (immediateMill != MoveList.NONE) return fastPath(state, immediateMill);
 
-        // Tactical defense: if human has an instant threat, prioritize a direct block.
-        Move blockingMove = findImmediateBlockMove(board, legalMoves, humanCode);
-        if (blockingMove != null) return blockingMove;
+            // Tactical defense: if human has an instant threat, prioritize a direct block.
+            int blockingMove = findImmediateBlockMove(state, legalMoves, humanCode);
+            if (blockingMove != MoveList.NONE) return fastPath(state, blockingMove);
+        }
 
-        // Lower depth in placement phase where branching factor is very high.
-        int searchDepth = isPlacementPhase(board) ? 2 : maxDepth;
-        List<Move> orderedMoves = orderMoves(board, legalMoves, cpuCode, humanCode, true);
+        int searchDepth = searchDepth(state);
+        orderMoves(state, legalMoves, cpuCode, humanCode, true);
+        int[] rootNoise = new int[legalMoves.size()];
+        if (noise > 0) {
+            for (int i = 0; i < rootNoise.length; i++) rootNoise[i] = random.nextInt(2 * noise + 1) - noise;
+        }
 
-        Move bestMove = null;
+        // Without a node or time budget: one pass at full depth. With one: iterative
+        // deepening that keeps the last completed depth, the previous best move first.
+        deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        budgetChecks = 0;
+        budgetArmed = false;
+        outOfBudget = false;
+        boolean bounded = nodeLimit > 0 || timeLimitMillis > 0;
+        int bestMove = MoveList.NONE;
         int bestScore = Integer.MIN_VALUE;
-        int alpha = Integer.MIN_VALUE;
-        int beta = Integer.MAX_VALUE;
+        for (int depth = bounded ? 1 : searchDepth; depth <= searchDepth; depth++) {
+            int best = searchRoot(state, legalMoves, depth, rootNoise);
+            if (outOfBudget) break;
+            bestMove = rootBestChild;
+            bestScore = rootBestScore;
+            stats.depth = depth;
+            budgetArmed = true;
+            legalMoves.moveToFront(best);
+            int noiseOfBest = rootNoise[best];
+            System.arraycopy(rootNoise, 0, rootNoise, 1, best);
+            rootNoise[0] = noiseOfBest;
+            if (bestScore >= WIN_SCORE - 1000) break;
+        }
 
-        for (Move move : orderedMoves) {
-            List<Board> nextStates = applyMoveAndResolveMill(board, move, cpuCode, humanCode);
-            int moveScore = Integer.MIN_VALUE;
+        if (bestMove != MoveList.NONE) stats.score = bestScore;
+        return bestMove == MoveList.NONE ? null : MoveList.toMove(bestMove);
+    }
 
-            for (Board next : nextStates) {
-                int score = minimax(next, searchDepth - 1, false, alpha, beta);
-                moveScore = Math.max(moveScore, score);
+    // one pass over the root moves at 'depth'; returns the index of the move with the best
+    // score plus its noise and leaves its capture variant and score in rootBestChild/rootBestScore
+    private int searchRoot(Board state, MoveList legalMoves, int depth, int[] rootNoise) {
+        int bestIndex = -1;
+        int bestNoisy = Integer.MIN_VALUE;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            MoveList children = stack.removals(0);
+            resolveMill(state, move, cpuCode, humanCode, children);
+            int moveScore = Integer.MIN_VALUE;
+            int moveChild = move;
+            // this move only matters if its score plus noise beats the best so far
+            int alpha = bestNoisy == Integer.MIN_VALUE ? Integer.MIN_VALUE : bestNoisy - rootNoise[i];
+
+            for (int j = 0; j < children.size(); j++) {
+                int child = children.get(j);
+                play(state, child, cpuCode);
+                int score = minimax(state, depth - 1, false, alpha, Integer.MAX_VALUE, 1);
+                takeBack(state, child, cpuCode);
+                if (outOfBudget) return bestIndex;
+                if (score > moveScore) {
+                    moveScore = score;
+                    moveChild = child;
+                }
                 alpha = Math.max(alpha, moveScore);
-                if (alpha >= beta) break;
             }
 
-            if (moveScore > bestScore) {
-                bestScore = moveScore;
-                bestMove = move;
+            // keep the capture variant, so the removal the search picked is the one played
+            if (bestIndex == -1 || moveScore + rootNoise[i] > bestNoisy) {
+                bestNoisy = moveScore + rootNoise[i];
+                bestIndex = i;
+                rootBestChild = moveChild;
+                rootBestScore = moveScore;
             }
         }
+        return bestIndex;
+    }
+
+    // Lower depth in placement phase where branching factor is very high.
+    private int searchDepth(Board state) {
+        return state.isPlacementPhase() ? Math.min(placementDepth, maxDepth) : maxDepth;
+    }
 
-        return bestMove;
+    // minimax entry: once the first depth is done, stop when the node or time budget is used up;
+    // the clock is read on a count of its own, leaves bump stats.nodes without coming here
+    private boolean budgetExhausted() {
+        if (!budgetArmed || outOfBudget) return outOfBudget;
+        if ((nodeLimit > 0 && stats.nodes >= nodeLimit)
+                || ((++budgetChecks & (TIME_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline)) {
+            outOfBudget = true;
+        }
+        return outOfBudget;
+    }
+
+    /**
+     * The 'count' best moves for 'side' with their scores and principal
+     * variations, best first, from one search of the same depth as getBestMove
+     * (without its tactical shortcuts). Root moves are searched against the
+     * count-th best score found so far, so only moves that can still enter the
+     * list get exact scores; the others fail low as in a single-best search.
+     * Capture variants of one move count as one entry, with the best removal.
+     */
+    public List<AnalysisLine> analyze(Board board, Player side, Player opponent, int count) {
+        this.cpuCode = side.code();
+        this.humanCode = opponent.code();
+        this.stats = new SearchStats();
+        List<AnalysisLine> lines = new ArrayList<>();
+        if (count <= 0) return lines;
+
+        Board state = board.clone();
+        if (incremental != null) incremental.reset(state);
+        resetHistory(state);
+        MoveList legalMoves = stack.moves(0);
+        state.generateLegalMoves(cpuCode, legalMoves);
+        if (legalMoves.isEmpty()) return lines;
+
+        int searchDepth = searchDepth(state);
+        stats.depth = searchDepth;
+        orderMoves(state, legalMoves, cpuCode, humanCode, true);
+
+        budgetArmed = false;
+        outOfBudget = false;
+        trackPv = true;
+        try {
+            for (int i = 0; i < legalMoves.size(); i++) {
+                MoveList children = stack.removals(0);
+                resolveMill(state, legalMoves.get(i), cpuCode, humanCode, children);
+                int moveScore = Integer.MIN_VALUE;
+                List<Move> moveLine = null;
+
+                for (int j = 0; j < children.size(); j++) {
+                    int child = children.get(j);
+                    // fail-soft: a score above alpha is exact, anything else only an upper bound
+                    int alpha = lines.size() < count ? Integer.MIN_VALUE : lines.get(count - 1).score;
+                    alpha = Math.max(alpha, moveScore);
+                    play(state, child, cpuCode);
+                    int score = minimax(state, searchDepth - 1, false, alpha, Integer.MAX_VALUE, 1);
+                    takeBack(state, child, cpuCode);
+                    if (moveLine == null || score > moveScore) {
+                        moveScore = score;
+                        pv.update(0, child);
+                        moveLine = new ArrayList<>(pv.length(0));
+                        for (int k = 0; k < pv.length(0); k++) moveLine.add(MoveList.toMove(pv.move(0, k)));
+                    }
+                }
+
+                if (lines.size() == count && moveScore <= lines.get(count - 1).score) continue;
+                int at = lines.size();
+                while (at > 0 && lines.get(at - 1).score < moveScore) at--;
+                lines.add(at, new AnalysisLine(moveLine.get(0), moveScore, moveLine));
+                if (lines.size() > count) lines.remove(count);
+            }
+        } finally {
+            trackPv = false;
+        }
+        stats.score = lines.get(0).score;
+        return lines;
     }
-   private int minimax(Board state, int depth, boolean isMaximizing, int alpha, int beta) {
-        nodesVisited++;
-        if (depth == 0 || isTerminal(state)) return evaluate(state);
+
+    private int minimax(Board state, int depth, boolean isMaximizing, int alpha, int beta, int ply) {
+        stats.nodes++;
+        stats.reachedPly(ply);
+        if (budgetExhausted()) return 0;
+        if (trackPv) pv.clear(ply);
+        if (isTerminal(state)) return evaluate(state);
+        // a repetition inside the game plus line, or the no-capture limit, ends the line in a draw
+        if (isHistoryDraw()) return DRAW_SCORE;
+        if (depth == 0) return evaluate(state);
 
         int currentCode = isMaximizing ? cpuCode : humanCode;
         int opponentCode = isMaximizing ? humanCode : cpuCode;
-        List<Move> moves = orderMoves(
-                state,
-                state.generateLegalMoves(currentCode),
-                currentCode,
-                opponentCode,
-                isMaximizing
-        );
+        MoveList moves = stack.moves(ply);
+        state.generateLegalMoves(currentCode, moves);
+        orderMoves(state, moves, currentCode, opponentCode, isMaximizing);
 
         if (moves.isEmpty()) {
             return isMaximizing ? -WIN_SCORE + depth : WIN_SCORE - depth;
         }
-
-        if (isMaximizing) {
-            int best = Integer.MIN_VALUE;
-            for (Move move : moves) {
-                for (Board next : applyMoveAndResolveMill(state, move, currentCode, opponentCode)) {
-                    int score = minimax(next, depth - 1, false, alpha, beta);
+        if (depth == 1 && batchLeaves) return lastPly(state, moves, currentCode, opponentCode, isMaximizing, alpha, beta, ply);
+
+        int best = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            MoveList children = stack.removals(ply);
+            resolveMill(state, moves.get(i), currentCode, opponentCode, children);
+            for (int j = 0; j < children.size(); j++) {
+                int child = children.get(j);
+                play(state, child, currentCode);
+                int score = minimax(state, depth - 1, !isMaximizing, alpha, beta, ply + 1);
+                takeBack(state, child, currentCode);
+                if (trackPv && (isMaximizing ? score > best && score > alpha : score < best && score < beta)) {
+                    pv.update(ply, child);
+                }
+                if (isMaximizing) {
                     best = Math.max(best, score);
                     alpha = Math.max(alpha, best);
-                    if (alpha >= beta) return best;
+                } else {
+                    best = Math.min(best, score);
+                    beta = Math.min(beta, best);
+                }
+                if (alpha >= beta) {
+                    stats.cutoff(i == 0 && j == 0);
+                    return best;
                 }
             }
-            return best;
         }
+        return best;
+    }
 
-        int best = Integer.MAX_VALUE;
-        for (Move move : moves) {
-            for (Board next : applyMoveAndResolveMill(state, move, currentCode, opponentCode)) {
-                int score = minimax(next, depth - 1, true, alpha, beta);
+    // depth-1 node: all leaf children are scored in one batch, then scanned in search
+    // order with the same alpha-beta bookkeeping as minimax
+    private int lastPly(Board state, MoveList moves, int currentCode, int opponentCode,
+                        boolean isMaximizing, int alpha, int beta, int ply) {
+        leaves.clear();
+        MoveList children = stack.removals(ply);
+        for (int i = 0; i < moves.size(); i++) {
+            resolveMill(state, moves.get(i), currentCode, opponentCode, children);
+            for (int j = 0; j < children.size(); j++) leaves.add(state, children.get(j), currentCode);
+        }
+        leaves.evaluate(cpuCode);
+        stats.leafEvals += leaves.size();
+        drawLeaves(opponentCode);
+        if (trackPv) pv.clear(ply + 1);
+
+        int best = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int k = 0; k < leaves.size(); k++) {
+            stats.nodes++;
+            stats.reachedPly(ply + 1);
+            int score = leaves.score(k);
+            if (trackPv && (isMaximizing ? score > best && score > alpha : score < best && score < beta)) {
+                pv.update(ply, leaves.move(k));
+            }
+            if (isMaximizing) {
+                best = Math.max(best, score);
+                alpha = Math.max(alpha, best);
+            } else {
                 best = Math.min(best, score);
                 beta = Math.min(beta, best);
-                if (alpha >= beta) return best;
+            }
+            if (alpha >= beta) {
+                stats.cutoff(k == 0);
+                return best;
             }
         }
         return best;
     }
 
-    private List<Board> applyMoveAndResolveMill(Board state, Move move, int moverCode, int opponentCode) {
-        Board applied = state.clone();
-        applied.applyMove(move, moverCode);
+    @Override
+    public SearchStats getLastStats() {
+        return stats;
+    }
 
-        if (!applied.formsMill(moverCode, move.to)) {
-            return List.of(applied);
+    // Fills 'out' with the concrete continuations of 'move': the move itself, or one
+    // capture variant per removable piece (best board for the mover first) when it closes a mill.
+    private void resolveMill(Board state, int move, int moverCode, int opponentCode, MoveList out) {
+        out.clear();
+        state.makeMove(move, moverCode);
+        int removable = state.formsMill(moverCode, MoveList.to(move)) ? state.removableMask(opponentCode) : 0;
+        state.unmakeMove(move, moverCode);
+
+        if (removable == 0) {
+            out.add(move);
+            return;
         }
-
-        List<Integer> removals = applied.candidateRemovals(opponentCode);
-        if (removals.isEmpty()) {
-            return List.of(applied);
+        if (batchLeaves) {
+            batch.clear();
+            for (int i = 0; i < 24; i++) {
+                if ((removable & (1 << i)) == 0) continue;
+                batch.add(state, MoveList.withRemoval(move, i), moverCode);
+            }
+            batch.evaluate(cpuCode);
+            stats.leafEvals += batch.size();
+            for (int i = 0; i < batch.size(); i++) out.add(batch.move(i), batch.score(i));
+        } else {
+            for (int i = 0; i < 24; i++) {
+                if ((removable & (1 << i)) == 0) continue;
+                int capture = MoveList.withRemoval(move, i);
+                make(state, capture, moverCode);
+                out.add(capture, evaluate(state));
+                unmake(state, capture, moverCode);
+            }
         }
+        // Higher board score for mover is better, so try these first.
+        out.sortByScore(true);
+    }
 
-        List<Board> outcomes = new ArrayList<>(removals.size());
-        List<Integer> orderedRemovals = orderRemovals(applied, removals, moverCode, opponentCode);
-        for (int removeAt : orderedRemovals) {
-            Board afterCapture = applied.clone();
-            afterCapture.getCells()[removeAt] = Constants.EMPTY;
-            outcomes.add(afterCapture);
+    // leaves reached by a plain slide or fly (nothing placed or captured) that repeat a
+    // position of the game or line, or reach the no-capture limit, score as draws; a leaf
+    // where a side has lost keeps its +-WIN_SCORE, as minimax checks isTerminal first
+    private void drawLeaves(int sideToMove) {
+        boolean limit = history.reversiblePlies() + 1 >= history.getNoCaptureLimit();
+        for (int k = 0; k < leaves.size(); k++) {
+            int move = leaves.move(k);
+            if (MoveList.from(move) == -1 || MoveList.removed(move) != -1) continue;
+            if (Math.abs(leaves.score(k)) == WIN_SCORE) continue;
+            if (limit || history.contains(PositionHistory.key(leaves.humanMask(k), leaves.cpuMask(k), sideToMove))) {
+                leaves.setScore(k, DRAW_SCORE);
+            }
         }
-        return outcomes;
     }
 
-    private boolean isTerminal(Board board) {
-        if (isPlacementPhase(board)) return false;
-
-        if (board.countPieces(cpuCode) <= 2 || board.countPieces(humanCode) <= 2) return true;
-        return board.generateLegalMoves(cpuCode).isEmpty() || board.generateLegalMoves(humanCode).isEmpty();
+    private boolean isHistoryDraw() {
+        return history.repetitions() > 1 || history.isNoCaptureDraw();
     }
 
-    private boolean isPlacementPhase(Board board) {
-        return board.generateLegalMoves(cpuCode).stream().anyMatch(m -> m.from == -1);
+    // the search line starts from the game's positions, ending with the root
+    private void resetHistory(Board root) {
+        if (gameHistory != null) history.copyFrom(gameHistory);
+        else history.clear();
+        if (history.size() == 0 || history.topKey() != PositionHistory.key(root, cpuCode)) history.push(root, cpuCode);
     }
 
-    private int evaluate(Board state) {
-        if (!isPlacementPhase(state)) {
-            if (state.countPieces(cpuCode) <= 2 || state.generateLegalMoves(cpuCode).isEmpty()) return -WIN_SCORE;
-            if (state.countPieces(humanCode) <= 2 || state.generateLegalMoves(humanCode).isEmpty()) return WIN_SCORE;
-        }
+    // make plus the position record, for moves along the searched line
+    private void play(Board state, int move, int moverCode) {
+        make(state, move, moverCode);
+        history.push(state, Rules.opponentOf(moverCode));
+    }
 
-        int score = 0;
+    private void takeBack(Board state, int move, int moverCode) {
+        history.pop();
+        unmake(state, move, moverCode);
+    }
 
-        int cpuPieces = state.countPieces(cpuCode);
-        int humanPieces = state.countPieces(humanCode);
-        int cpuMobility = state.generateLegalMoves(cpuCode).size();
-        int humanMobility = state.generateLegalMoves(humanCode).size();
+    private boolean isTerminal(Board board) {
+        return Rules.isGameOver(board, cpuCode) || Rules.isGameOver(board, humanCode);
+    }
 
-        score += (cpuPieces - humanPieces) * PIECE_VALUE;
-        score += (cpuMobility - humanMobility) * MOBILITY_WEIGHT;
-        score += (state.countMills(cpuCode) - state.countMills(humanCode)) * MILL_VALUE;
-        score += (countNearMills(state, cpuCode) - countNearMills(state, humanCode)) * MILL_POTENTIAL;
-        score += (countBlockedPieces(state, humanCode) - countBlockedPieces(state, cpuCode)) * BLOCK_THREAT_VALUE;
-        score += (largestCluster(state, cpuCode) - largestCluster(state, humanCode)) * CLUSTER_VALUE;
+    // makeMove/unmakeMove for positions that may be evaluated, keeping an incremental evaluator in step
+    private void make(Board state, int move, int moverCode) {
+        if (incremental != null) incremental.make(state, move, moverCode);
+        state.makeMove(move, moverCode);
+    }
 
-        score += state.countPiecesInList(cpuCode, Constants.INNER_RING) * 8;
-        score += state.countPiecesInList(cpuCode, Constants.MIDDLE_RING) * 5;
-        score -= state.countPiecesInList(humanCode, Constants.INNER_RING) * 8;
-        score -= state.countPiecesInList(humanCode, Constants.MIDDLE_RING) * 5;
+    private void unmake(Board state, int move, int moverCode) {
+        state.unmakeMove(move, moverCode);
+        if (incremental != null) incremental.unmake();
+    }
 
-        return score;
+    private int evaluate(Board state) {
+        stats.leafEvals++;
+        return evaluator.evaluate(state, cpuCode);
     }
 
-    private int countNearMills(Board board, int playerCode) {
-        int near = 0;
-        for (int[] mill : Constants.MILLS) {
-            int own = 0;
-            int empty = 0;
-            for (int idx : mill) {
-                if (board.getCells()[idx] == playerCode) own++;
-                else if (board.getCells()[idx] == Constants.EMPTY) empty++;
-            }
-            if (own == 2 && empty == 1) near++;
-        }
-        return near;
+    // a tactical move played without search; its score is the evaluation after it
+    private Move fastPath(Board state, int move) {
+        make(state, move, cpuCode);
+        stats.score = evaluate(state);
+        unmake(state, move, cpuCode);
+        return MoveList.toMove(move);
     }
 
-    private Move findImmediateMillMove(Board board, List<Move> moves, int playerCode, int opponentCode) {
-        Move best = null;
+    private int findImmediateMillMove(Board state, MoveList moves, int playerCode, int opponentCode) {
+        int best = MoveList.NONE;
         int bestScore = Integer.MIN_VALUE;
-        for (Move move : moves) {
-            Board next = board.clone();
-            next.applyMove(move, playerCode);
-            if (!next.formsMill(playerCode, move.to)) continue;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            make(state, move, playerCode);
+            if (!state.formsMill(playerCode, MoveList.to(move))) {
+                unmake(state, move, playerCode);
+                continue;
+            }
 
             // Approximate impact after best available capture.
             int score = Integer.MIN_VALUE;
-            List<Integer> removals = next.candidateRemovals(opponentCode);
-            if (removals.isEmpty()) {
-                score = evaluate(next);
-            } else {
-                for (int rem : removals) {
-                    Board c = next.clone();
-                    c.getCells()[rem] = Constants.EMPTY;
-                    score = Math.max(score, evaluate(c));
+            int full = move;
+            int removals = state.removableMask(opponentCode);
+            if (removals == 0) score = evaluate(state);
+            unmake(state, move, playerCode);
+            for (int rem = 0; rem < 24; rem++) {
+                if ((removals & (1 << rem)) == 0) continue;
+                int capture = MoveList.withRemoval(move, rem);
+                make(state, capture, playerCode);
+                int captureScore = evaluate(state);
+                unmake(state, capture, playerCode);
+                if (captureScore > score) {
+                    score = captureScore;
+                    full = capture;
                 }
             }
             if (score > bestScore) {
                 bestScore = score;
-                best = move;
+                best = full;
             }
         }
         return best;
     }
 
-    private Move findImmediateBlockMove(Board board, List<Move> cpuMoves, int opponentCode) {
-        List<Move> threatMoves = board.generateLegalMoves(opponentCode);
-        List<Integer> threatTargets = new ArrayList<>();
-        for (Move threat : threatMoves) {
-            Board next = board.clone();
-            next.applyMove(threat, opponentCode);
-            if (next.formsMill(opponentCode, threat.to)) threatTargets.add(threat.to);
-        }
-
-        if (threatTargets.isEmpty()) return null;
-        for (Move cpuMove : cpuMoves) {
-            if (threatTargets.contains(cpuMove.to)) return cpuMove;
+    private int findImmediateBlockMove(Board state, MoveList cpuMoves, int opponentCode) {
+        int threatTargets = ThreatMap.millTargets(state, opponentCode);
+        if (threatTargets == 0) return MoveList.NONE;
+        for (int i = 0; i < cpuMoves.size(); i++) {
+            int cpuMove = cpuMoves.get(i);
+            if ((threatTargets & (1 << MoveList.to(cpuMove))) != 0) return cpuMove;
         }
-        return null;
+        return MoveList.NONE;
     }
 
-    private List<Move> orderMoves(
+    // scores each move in place and sorts (stable) by that score
+    private void orderMoves(
             Board state,
-            List<Move> moves,
+            MoveList moves,
             int moverCode,
             int opponentCode,
             boolean descending
     ) {
-        List<ScoredMove> scored = new ArrayList<>(moves.size());
-        for (Move move : moves) {
-            Board c = state.clone();
-            c.applyMove(move, moverCode);
-            int score = 0;
-            if (c.formsMill(moverCode, move.to)) score += 400;
-            score += (countNearMills(c, moverCode) - countNearMills(c, opponentCode)) * 20;
-            score += (c.generateLegalMoves(moverCode).size() - c.generateLegalMoves(opponentCode).size()) * 3;
-            if (Constants.INNER_RING.contains(move.to)) score += 20;
-            if (Constants.MIDDLE_RING.contains(move.to)) score += 12;
-            scored.add(new ScoredMove(move, score));
-        }
-
-        scored.sort((a, b) -> descending
-                ? Integer.compare(b.score, a.score)
-                : Integer.compare(a.score, b.score));
-
-        List<Move> ordered = new ArrayList<>(moves.size());
-        for (ScoredMove sm : scored) ordered.add(sm.move);
-        return ordered;
-    }
-
-    private List<Integer> orderRemovals(Board state, List<Integer> removals, int moverCode, int opponentCode) {
-        List<ScoredRemoval> scored = new ArrayList<>(removals.size());
-        for (int rem : removals) {
-            Board c = state.clone();
-            c.getCells()[rem] = Constants.EMPTY;
-            int score = evaluate(c);
-            scored.add(new ScoredRemoval(rem, score));
-        }
-        // Higher board score for mover is better, so try these first.
-        scored.sort((a, b) -> Integer.compare(b.score, a.score));
-
-        List<Integer> ordered = new ArrayList<>(removals.size());
-        for (ScoredRemoval sr : scored) ordered.add(sr.index);
-        return ordered;
+        batch.clear();
+        for (int i = 0; i < moves.size(); i++) batch.add(state, moves.get(i), moverCode);
+        batch.orderingScores(moverCode);
+        for (int i = 0; i < moves.size(); i++) moves.setScore(i, batch.score(i));
+        moves.sortByScore(descending);
     }
 
-    private int countBlockedPieces(Board board, int playerCode) {
-        if (isPlacementPhase(board)) return 0;
-        int blocked = 0;
-        boolean flying = board.countPieces(playerCode) == 3;
-        if (flying) return 0;
-        for (int i = 0; i < 24; i++) {
-            if (board.getCells()[i] != playerCode) continue;
-            boolean hasEmptyNeighbor = false;
-            for (int nb : Constants.ADJ.get(i)) {
-                if (board.getCells()[nb] == Constants.EMPTY) {
-                    hasEmptyNeighbor = true;
-                    break;
-                }
-            }
-            if (!hasEmptyNeighbor) blocked++;
-        }
-        return blocked;
-    }
-
-    private int largestCluster(Board board, int playerCode) {
-        boolean[] visited = new boolean[24];
-        int best = 0;
-        for (int i = 0; i < 24; i++) {
-            if (visited[i] || board.getCells()[i] != playerCode) continue;
-            int cluster = dfsCluster(board, i, playerCode, visited);
-            if (cluster > best) best = cluster;
-        }
-        return best;
-    }
-
-    private int dfsCluster(Board board, int index, int playerCode, boolean[] visited) {
-        visited[index] = true;
-        int size = 1;
-        for (int nb : Constants.ADJ.get(index)) {
-            if (!visited[nb] && board.getCells()[nb] == playerCode) {
-                size += dfsCluster(board, nb, playerCode, visited);
-            }
-        }
-        return size;
-    }
     public String buildSearchTrace(Board board, Player cpu, Player human, int depthLimit, int nodeLimit) {
         this.cpuCode = cpu.code();
         this.humanCode = human.code();
+        this.stats = new SearchStats();
 
         int effectiveDepth = Math.max(1, depthLimit);
-        List<Move> legalMoves = board.generateLegalMoves(cpuCode);
+        Board state = board.clone();
+        if (incremental != null) incremental.reset(state);
+        resetHistory(state);
+        MoveList legalMoves = stack.moves(0);
+        state.generateLegalMoves(cpuCode, legalMoves);
         TraceContext trace = new TraceContext(nodeLimit);
 
         trace.out.append("Backtracking Visualizer\n");
@@ -372,33 +593,38 @@ public class BacktrackingStrategy implements CpuStrategy {
             return trace.out.toString();
         }
 
-        Move immediateMill = findImmediateMillMove(board, legalMoves, cpuCode, humanCode);
-        if (immediateMill != null) {
+        int immediateMill = findImmediateMillMove(state, legalMoves, cpuCode, humanCode);
+        if (immediateMill != MoveList.NONE) {
             trace.out.append("Fast-path immediate mill detected -> ")
-                    .append(immediateMill)
+                    .append(MoveList.toMove(immediateMill))
                     .append("\n");
         }
-        Move immediateBlock = findImmediateBlockMove(board, legalMoves, humanCode);
-        if (immediateBlock != null) {
+        int immediateBlock = findImmediateBlockMove(state, legalMoves, humanCode);
+        if (immediateBlock != MoveList.NONE) {
             trace.out.append("Fast-path block threat detected -> ")
-                    .append(immediateBlock)
+                    .append(MoveList.toMove(immediateBlock))
                     .append("\n");
         }
         trace.out.append("\nRoot search:\n");
 
-        List<Move> orderedMoves = orderMoves(board, legalMoves, cpuCode, humanCode, true);
+        orderMoves(state, legalMoves, cpuCode, humanCode, true);
         int alpha = Integer.MIN_VALUE;
         int beta = Integer.MAX_VALUE;
         Move bestMove = null;
         int bestScore = Integer.MIN_VALUE;
 
-        for (Move move : orderedMoves) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            Move move = MoveList.toMove(legalMoves.get(i));
             trace.out.append("- Try ").append(move).append("\n");
-            List<Board> nextStates = applyMoveAndResolveMill(board, move, cpuCode, humanCode);
+            MoveList children = stack.removals(0);
+            resolveMill(state, legalMoves.get(i), cpuCode, humanCode, children);
             int moveScore = Integer.MIN_VALUE;
 
-            for (Board next : nextStates) {
-                int score = minimaxTrace(next, effectiveDepth - 1, false, alpha, beta, 1, trace);
+            for (int j = 0; j < children.size(); j++) {
+                int child = children.get(j);
+                play(state, child, cpuCode);
+                int score = minimaxTrace(state, effectiveDepth - 1, false, alpha, beta, 1, trace);
+                takeBack(state, child, cpuCode);
                 moveScore = Math.max(moveScore, score);
                 alpha = Math.max(alpha, moveScore);
                 if (alpha >= beta) {
@@ -424,6 +650,7 @@ public class BacktrackingStrategy implements CpuStrategy {
         return trace.out.toString();
     }
 
+    // 'level' doubles as the ply index into the move stack
     private int minimaxTrace(
             Board state,
             int depth,
@@ -438,6 +665,11 @@ public class BacktrackingStrategy implements CpuStrategy {
         }
 
         String indent = "  ".repeat(Math.max(0, level));
+        if (!isTerminal(state) && isHistoryDraw()) {
+            trace.out.append(indent).append("draw (").append(history.repetitions() > 1 ? "repetition" : "no capture")
+                    .append(")\n");
+            return DRAW_SCORE;
+        }
         if (depth == 0 || isTerminal(state)) {
             int eval = evaluate(state);
             trace.out.append(indent)
@@ -449,13 +681,9 @@ public class BacktrackingStrategy implements CpuStrategy {
 
         int currentCode = isMaximizing ? cpuCode : humanCode;
         int opponentCode = isMaximizing ? humanCode : cpuCode;
-        List<Move> moves = orderMoves(
-                state,
-                state.generateLegalMoves(currentCode),
-                currentCode,
-                opponentCode,
-                isMaximizing
-        );
+        MoveList moves = stack.moves(level);
+        state.generateLegalMoves(currentCode, moves);
+        orderMoves(state, moves, currentCode, opponentCode, isMaximizing);
 
         if (moves.isEmpty()) {
             int score = isMaximizing ? -WIN_SCORE + depth : WIN_SCORE - depth;
@@ -463,33 +691,24 @@ public class BacktrackingStrategy implements CpuStrategy {
             return score;
         }
 
-        if (isMaximizing) {
-            int best = Integer.MIN_VALUE;
-            trace.out.append(indent).append("MAX depth=").append(depth).append("\n");
-            for (Move move : moves) {
-                trace.out.append(indent).append("try ").append(move).append("\n");
-                for (Board next : applyMoveAndResolveMill(state, move, currentCode, opponentCode)) {
-                    int score = minimaxTrace(next, depth - 1, false, alpha, beta, level + 1, trace);
+        int best = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        trace.out.append(indent).append(isMaximizing ? "MAX depth=" : "MIN depth=").append(depth).append("\n");
+        for (int i = 0; i < moves.size(); i++) {
+            trace.out.append(indent).append("try ").append(MoveList.toMove(moves.get(i))).append("\n");
+            MoveList children = stack.removals(level);
+            resolveMill(state, moves.get(i), currentCode, opponentCode, children);
+            for (int j = 0; j < children.size(); j++) {
+                int child = children.get(j);
+                play(state, child, currentCode);
+                int score = minimaxTrace(state, depth - 1, !isMaximizing, alpha, beta, level + 1, trace);
+                takeBack(state, child, currentCode);
+                if (isMaximizing) {
                     best = Math.max(best, score);
                     alpha = Math.max(alpha, best);
-                    if (alpha >= beta) {
-                        trace.out.append(indent).append("prune (alpha >= beta)\n");
-                        return best;
-                    }
-                    if (trace.capped) return best;
+                } else {
+                    best = Math.min(best, score);
+                    beta = Math.min(beta, best);
                 }
-            }
-            return best;
-        }
-
-        int best = Integer.MAX_VALUE;
-        trace.out.append(indent).append("MIN depth=").append(depth).append("\n");
-        for (Move move : moves) {
-            trace.out.append(indent).append("try ").append(move).append("\n");
-            for (Board next : applyMoveAndResolveMill(state, move, currentCode, opponentCode)) {
-                int score = minimaxTrace(next, depth - 1, true, alpha, beta, level + 1, trace);
-                best = Math.min(best, score);
-                beta = Math.min(beta, best);
                 if (alpha >= beta) {
                     trace.out.append(indent).append("prune (alpha >= beta)\n");
                     return best;
@@ -499,26 +718,4 @@ public class BacktrackingStrategy implements CpuStrategy {
         }
         return best;
     }
-
-
-    private static class ScoredMove {
-        private final Move move;
-        private final int score;
-
-        private ScoredMove(Move move, int score) {
-            this.move = move;
-            this.score = score;
-        }
-    }
-
-    private static class ScoredRemoval {
-        private final int index;
-        private final int score;
-
-        private ScoredRemoval(int index, int score) {
-            this.index = index;
-            this.score = score;
-        }
-    }
 }
- 
\ No newline at end of file
@@ -0,0 +1,235 @@
+package morris.ai;
+
+import morris.model.Board;
+import morris.model.MoveList;
+import morris.model.Rules;
+import morris.util.BitGraph;
+import morris.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Scores a batch of positions, typically all children of one search node, in a
+ * single call. Positions are kept as parallel arrays (human mask, cpu mask,
+ * placement flag, move) and every feature is computed by its own loop over the
+ * whole batch with branch-free integer arithmetic, which C2 can unroll and
+ * auto-vectorize. Mobility, blocked pieces and clusters use the BitGraph mask
+ * primitives per position.
+ *
+ * evaluate() gives exactly LinearEvaluator.evaluate of the evaluator set with
+ * setEvaluator, and orderingScores() BacktrackingStrategy's move-ordering
+ * heuristic, so using a batch never changes a search.
+ */
+public final class BatchEvaluator {
+
+    private int size;
+    private int[] human = new int[64];
+    private int[] cpu = new int[64];
+    private int[] placement = new int[64];
+    private int[] moves = new int[64];
+    private int[] empty = new int[64];
+    private int[] scores = new int[64];
+
+    private int[] ownWeights;
+    private int[] oppWeights;
+    private LinearEvaluator.Terminal terminal;
+
+    // per-side feature columns: a = side the score is for, b = the other side
+    private final Side a = new Side();
+    private final Side b = new Side();
+
+    public BatchEvaluator(LinearEvaluator evaluator) {
+        setEvaluator(evaluator);
+    }
+
+    public void setEvaluator(LinearEvaluator evaluator) {
+        ownWeights = evaluator.ownWeights();
+        oppWeights = evaluator.oppWeights();
+        terminal = evaluator.terminal();
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int move(int i) {
+        return moves[i];
+    }
+
+    public int score(int i) {
+        return scores[i];
+    }
+
+    public void setScore(int i, int score) {
+        scores[i] = score;
+    }
+
+    public int humanMask(int i) {
+        return human[i];
+    }
+
+    public int cpuMask(int i) {
+        return cpu[i];
+    }
+
+    // queues the position after moverCode plays 'move' on state (state is not modified)
+    public void add(Board state, int move, int moverCode) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        int removed = MoveList.removed(move);
+        int own = state.occupancyMask(moverCode);
+        int opp = state.occupancyMask(Rules.opponentOf(moverCode));
+        if (from != -1) own &= ~(1 << from);
+        own |= 1 << to;
+        if (removed != -1) opp &= ~(1 << removed);
+
+        boolean place = state.isPlacementPhase();
+        if (from == -1 && state.getPlacedCount(Constants.HUMAN) + state.getPlacedCount(Constants.CPU) + 1
+                >= 2 * Board.PIECES_PER_PLAYER) {
+            place = false;
+        }
+
+        ensure(size + 1);
+        human[size] = moverCode == Constants.HUMAN ? own : opp;
+        cpu[size] = moverCode == Constants.HUMAN ? opp : own;
+        placement[size] = place ? 1 : 0;
+        moves[size] = move;
+        size++;
+    }
+
+    // scores from maxCode's point of view, as LinearEvaluator.evaluate
+    public void evaluate(int maxCode) {
+        prepare(maxCode);
+        int n = size;
+        Arrays.fill(scores, 0, n, 0);
+        for (int f = 0; f < Features.COUNT; f++) {
+            int wa = ownWeights[f], wb = oppWeights[f];
+            if (wa == 0 && wb == 0) continue;
+            int[] fa = a.cols[f], fb = b.cols[f];
+            for (int i = 0; i < n; i++) scores[i] += wa * fa[i] + wb * fb[i];
+        }
+
+        if (terminal == LinearEvaluator.Terminal.NONE) return;
+        for (int i = 0; i < n; i++) {
+            if (terminal == LinearEvaluator.Terminal.RULES) {
+                if (b.lost[i] != 0) scores[i] = LinearEvaluator.WIN_SCORE;
+                if (a.lost[i] != 0) scores[i] = -LinearEvaluator.WIN_SCORE;
+            } else if (placement[i] == 0) {
+                if (b.cols[Features.PIECES][i] <= 2) scores[i] = LinearEvaluator.WIN_SCORE;
+                if (a.cols[Features.PIECES][i] <= 2) scores[i] = -LinearEvaluator.WIN_SCORE;
+            }
+        }
+    }
+
+    // move-ordering scores for moves of moverCode: mill bonus, near-mill and mobility
+    // difference after the move, and a bonus for landing on the inner/middle ring
+    public void orderingScores(int moverCode) {
+        prepare(moverCode);
+        int n = size;
+        int[] own = moverCode == Constants.HUMAN ? human : cpu;
+        int[] nearA = a.cols[Features.NEAR_MILLS], nearB = b.cols[Features.NEAR_MILLS];
+        int[] mobA = a.cols[Features.MOBILITY], mobB = b.cols[Features.MOBILITY];
+        for (int i = 0; i < n; i++) {
+            int to = MoveList.to(moves[i]);
+            int[] pm = Constants.POINT_MILLS[to];
+            int m0 = Constants.MILL_MASKS[pm[0]];
+            int m1 = Constants.MILL_MASKS[pm[1]];
+            int score = 0;
+            if ((own[i] & m0) == m0 || (own[i] & m1) == m1) score += 400;
+            score += (nearA[i] - nearB[i]) * 20;
+            score += (mobA[i] - mobB[i]) * 3;
+            if ((Constants.INNER_RING_MASK & (1 << to)) != 0) score += 20;
+            if ((Constants.MIDDLE_RING_MASK & (1 << to)) != 0) score += 12;
+            scores[i] = score;
+        }
+    }
+
+    // ========================= FEATURES =========================
+
+    private void prepare(int sideCode) {
+        int n = size;
+        for (int i = 0; i < n; i++) empty[i] = ~(human[i] | cpu[i]) & Constants.ALL_POINTS;
+        a.ensure(n);
+        b.ensure(n);
+        int[] own = sideCode == Constants.HUMAN ? human : cpu;
+        int[] opp = sideCode == Constants.HUMAN ? cpu : human;
+        a.compute(own, opp, empty, placement, n);
+        b.compute(opp, own, empty, placement, n);
+    }
+
+    // one column per Features value, plus the lost flag
+    private static final class Side {
+        int[][] cols = new int[Features.COUNT][0];
+        int[] lost = new int[0];
+
+        void ensure(int n) {
+            if (lost.length >= n) return;
+            int cap = Math.max(n, lost.length * 2);
+            cols = new int[Features.COUNT][cap];
+            lost = new int[cap];
+        }
+
+        void compute(int[] own, int[] opp, int[] empty, int[] placement, int n) {
+            int[] pieces = cols[Features.PIECES];
+            int[] mobility = cols[Features.MOBILITY];
+            int[] mills = cols[Features.MILLS];
+            int[] nearMills = cols[Features.NEAR_MILLS];
+            int[] twoInRow = cols[Features.TWO_IN_ROW];
+            int[] blocked = cols[Features.BLOCKED];
+            int[] cluster = cols[Features.CLUSTER];
+            int[] inner = cols[Features.INNER_RING];
+            int[] middle = cols[Features.MIDDLE_RING];
+
+            for (int i = 0; i < n; i++) {
+                pieces[i] = Integer.bitCount(own[i]);
+                inner[i] = Integer.bitCount(own[i] & Constants.INNER_RING_MASK);
+                middle[i] = Integer.bitCount(own[i] & Constants.MIDDLE_RING_MASK);
+                mobility[i] = BitGraph.steps(own[i], empty[i]);
+                blocked[i] = Integer.bitCount(BitGraph.blocked(own[i], empty[i]));
+                mills[i] = 0;
+                nearMills[i] = 0;
+                twoInRow[i] = 0;
+            }
+
+            // (x - 1) >>> 31 is 1 exactly when the 24-bit value x is 0
+            for (int mm : Constants.MILL_MASKS) {
+                for (int i = 0; i < n; i++) {
+                    int mine = own[i] & mm;
+                    mills[i] += ((mine ^ mm) - 1) >>> 31;
+                    int count = Integer.bitCount(mine);
+                    twoInRow[i] += ((count ^ 2) - 1) >>> 31;
+                    // two own stones and no opponent stone leaves the third point empty
+                    int near = count | (Integer.bitCount(opp[i] & mm) << 2);
+                    nearMills[i] += ((near ^ 2) - 1) >>> 31;
+                }
+            }
+
+            for (int i = 0; i < n; i++) {
+                int emptyCount = Integer.bitCount(empty[i]);
+                boolean place = placement[i] != 0;
+                boolean flying = !place && pieces[i] == 3;
+                // during placement every empty point is a move; a flying side reaches all of them
+                if (place) mobility[i] = emptyCount;
+                else if (flying) mobility[i] = pieces[i] * emptyCount;
+                if (place || flying) blocked[i] = 0;
+                lost[i] = !place && (pieces[i] <= 2 || mobility[i] == 0) ? 1 : 0;
+                cluster[i] = BitGraph.largestCluster(own[i]);
+            }
+        }
+    }
+
+    private void ensure(int n) {
+        if (human.length >= n) return;
+        int cap = Math.max(n, human.length * 2);
+        human = Arrays.copyOf(human, cap);
+        cpu = Arrays.copyOf(cpu, cap);
+        placement = Arrays.copyOf(placement, cap);
+        moves = Arrays.copyOf(moves, cap);
+        empty = Arrays.copyOf(empty, cap);
+        scores = Arrays.copyOf(scores, cap);
+    }
+}
@@ -1,9 +1,61 @@
 package morris.ai;
 
+import morris.metrics.GamePhase;
+import morris.metrics.MetricsRegistry;
+import morris.metrics.SearchEvent;
 import morris.model.Board;
 import morris.model.Move;
 import morris.model.Player;
+import morris.model.PositionHistory;
+import morris.model.Rules;
 
 public interface CpuStrategy {
+    // the chosen move; when it closes a mill, removed should hold the piece to take
+    // (search() fills in a default removal for strategies that leave it at -1)
     Move getBestMove(Board board, Player cpu, Player human);
+
+    // positions of the game being played, for strategies that avoid or seek repetition
+    // draws; the caller keeps it up to date and strategies only read it
+    default void setGameHistory(PositionHistory history) {}
+
+    // counters of the last getBestMove call; strategies that don't count return an empty set
+    default SearchStats getLastStats() {
+        return new SearchStats();
+    }
+
+    // getBestMove plus elapsed time / allocation, recorded in SearchStatsRegistry,
+    // in the per-phase latency histograms of MetricsRegistry and as a JFR SearchEvent
+    default SearchResult search(Board board, Player cpu, Player human) {
+        GamePhase phase = GamePhase.of(board, cpu.code());
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long allocBefore = SearchStats.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        Move move = Rules.complete(board, getBestMove(board, cpu, human), cpu.code());
+        long elapsed = System.nanoTime() - start;
+        event.end();
+
+        SearchStats stats = getLastStats();
+        stats.elapsedNanos = elapsed;
+        if (allocBefore >= 0) stats.allocatedBytes = SearchStats.currentThreadAllocatedBytes() - allocBefore;
+        String name = getClass().getSimpleName();
+        SearchStatsRegistry.global().record(name, stats);
+        MetricsRegistry.global().recordMove(name, phase, elapsed);
+        if (event.shouldCommit()) {
+            event.strategy = name;
+            event.phase = phase.label();
+            event.move = String.valueOf(move);
+            event.depth = stats.getDepth();
+            event.maxPly = stats.getMaxPly();
+            event.nodes = stats.getNodes();
+            event.leafEvals = stats.getLeafEvals();
+            event.betaCutoffs = stats.getBetaCutoffs();
+            event.cacheProbes = stats.getCacheProbes();
+            event.cacheHits = stats.getCacheHits();
+            event.ttProbes = stats.getTtProbes();
+            event.ttHits = stats.getTtHits();
+            event.commit();
+        }
+        return new SearchResult(move, stats);
+    }
 }
@@ -0,0 +1,60 @@
+package morris.ai;
+
+/**
+ * Playing strength as a search budget for BacktrackingStrategy instead of a
+ * choice of algorithm: a depth limit (also used while placing), a node and a
+ * time budget per move (iterative deepening keeps the last completed depth)
+ * and random noise on the root move scores, which also turns off the
+ * tactical shortcuts. The cost of a move is bounded by the node budget on any
+ * machine and by the time budget on slow ones.
+ *
+ * Strength and cost per level are measured with tools.CalibrateDifficulty.
+ */
+public enum Difficulty {
+    BEGINNER("Beginner", 1, 1_000, 50, 250),
+    EASY("Easy", 2, 10_000, 100, 120),
+    MEDIUM("Medium", 3, 60_000, 250, 90),
+    HARD("Hard", 4, 300_000, 500, 0),
+    EXPERT("Expert", 6, 1_000_000, 1_000, 0);
+
+    public final String label;
+    public final int depth;
+    public final long nodes;
+    public final long timeMillis;
+    public final int noise;
+
+    Difficulty(String label, int depth, long nodes, long timeMillis, int noise) {
+        this.label = label;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.noise = noise;
+    }
+
+    public BacktrackingStrategy newStrategy() {
+        BacktrackingStrategy s = new BacktrackingStrategy();
+        configure(s);
+        return s;
+    }
+
+    public void configure(BacktrackingStrategy s) {
+        s.setMaxDepth(depth);
+        s.setPlacementDepth(depth);
+        s.setNodeLimit(nodes);
+        s.setTimeLimitMillis(timeMillis);
+        s.setNoise(noise);
+    }
+
+    // by enum name or label, case-insensitive; null if there is no such level
+    public static Difficulty of(String name) {
+        for (Difficulty d : values()) {
+            if (d.name().equalsIgnoreCase(name) || d.label.equalsIgnoreCase(name)) return d;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -1,15 +1,38 @@
 package morris.ai;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import morris.model.Board;
 import morris.model.Move;
 import morris.model.Player;
+import morris.model.ThreatMap;
 import morris.util.Constants;
 
 public class DivideAndConquerStrategy implements CpuStrategy {
 
+    // regions with fewer moves are scored in the forking thread
+    private static final int PARALLEL_MIN_MOVES = 8;
+
+    private SearchStats stats = new SearchStats();
+    // -Dmorris.parallel=true turns it on for every new instance
+    private boolean parallel = Boolean.getBoolean("morris.parallel");
+
+    // score the three regions as fork-join tasks; the chosen move is the same either way,
+    // on a single core it only adds overhead
+    public boolean isParallel() { return parallel; }
+    public void setParallel(boolean parallel) { this.parallel = parallel; }
+
+    @Override
+    public SearchStats getLastStats() {
+        return stats;
+    }
+
     @Override
     public Move getBestMove(Board board, Player cpu, Player human) {
+        stats = new SearchStats();
+        stats.depth = 1;
+        stats.reachedPly(1);
 
         List<Move> moves = board.generateLegalMoves(cpu.code());
         if (moves.isEmpty()) return null;
@@ -26,9 +49,24 @@ public class DivideAndConquerStrategy implements CpuStrategy {
         }
 
         // ---- CONQUER ----
-        List<ScoredMove> outerScored = scoreRegion(board, cpu, human, outer);
-        List<ScoredMove> midScored   = scoreRegion(board, cpu, human, middle);
-        List<ScoredMove> innerScored = scoreRegion(board, cpu, human, inner);
+        // the opponent's mill threats do not depend on our candidate, so find them once
+        int threatTargets = ThreatMap.millTargets(board, human.code());
+        List<ScoredMove> outerScored, midScored, innerScored;
+        if (parallel && moves.size() >= 2 * PARALLEL_MIN_MOVES) {
+            RegionTask o = new RegionTask(board, cpu, human, outer, threatTargets);
+            RegionTask mi = new RegionTask(board, cpu, human, middle, threatTargets);
+            RegionTask in = new RegionTask(board, cpu, human, inner, threatTargets);
+            ForkJoinTask.invokeAll(o, mi, in);
+            outerScored = o.join();
+            midScored = mi.join();
+            innerScored = in.join();
+        } else {
+            outerScored = scoreRegion(board, cpu, human, outer, threatTargets);
+            midScored   = scoreRegion(board, cpu, human, middle, threatTargets);
+            innerScored = scoreRegion(board, cpu, human, inner, threatTargets);
+        }
+        stats.nodes += moves.size();
+        stats.leafEvals += moves.size();
 
         // ---- MERGE ----
         List<ScoredMove> merged = mergeSorted(
@@ -43,23 +81,54 @@ public class DivideAndConquerStrategy implements CpuStrategy {
     // ===============================================================
     // REGION SCORING
     // ===============================================================
-    private List<ScoredMove> scoreRegion(Board board, Player cpu, Player human, List<Move> regionMoves) {
+    private List<ScoredMove> scoreRegion(Board board, Player cpu, Player human, List<Move> regionMoves,
+                                         int threatTargets) {
         List<ScoredMove> result = new ArrayList<>();
 
         for (Move m : regionMoves) {
             Board clone = board.clone();
             clone.applyMove(m, cpu.code());
 
-            int score = evaluate(clone, board, m, cpu, human);
+            int score = evaluate(clone, m, cpu, human, threatTargets);
             result.add(new ScoredMove(m, score));
         }
         return result;
     }
 
+    // one region scored on the fork-join pool; a large region splits in halves
+    private final class RegionTask extends RecursiveTask<List<ScoredMove>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final Player cpu, human;
+        private final List<Move> moves;
+        private final int threatTargets;
+
+        RegionTask(Board board, Player cpu, Player human, List<Move> moves, int threatTargets) {
+            this.board = board;
+            this.cpu = cpu;
+            this.human = human;
+            this.moves = moves;
+            this.threatTargets = threatTargets;
+        }
+
+        @Override
+        protected List<ScoredMove> compute() {
+            if (moves.size() < 2 * PARALLEL_MIN_MOVES) return scoreRegion(board, cpu, human, moves, threatTargets);
+            int mid = moves.size() / 2;
+            RegionTask left = new RegionTask(board, cpu, human, moves.subList(0, mid), threatTargets);
+            RegionTask right = new RegionTask(board, cpu, human, moves.subList(mid, moves.size()), threatTargets);
+            right.fork();
+            List<ScoredMove> result = new ArrayList<>(left.compute());
+            result.addAll(right.join());
+            return result;
+        }
+    }
+
     // ===============================================================
     // LOCAL EVALUATION FUNCTION
     // ===============================================================
-    private int evaluate(Board newState, Board oldState, Move m, Player cpu, Player human) {
+    private int evaluate(Board newState, Move m, Player cpu, Player human, int threatTargets) {
         int score = 0;
 
         int cpuCode = cpu.code();
@@ -69,9 +138,9 @@ public class DivideAndConquerStrategy implements CpuStrategy {
         if (newState.formsMill(cpuCode, m.to)) score += 80;
 
         // Block opponent near mill
-        boolean hadThreat = hasMillThreat(oldState, human);
+        boolean hadThreat = threatTargets != 0;
         if (hadThreat) {
-            if (blocksOpponentMill(oldState, m, human)) {
+            if ((threatTargets & (1 << m.to)) != 0) {
                 score += 1000; // huge bonus for blocking
             } else {
                 score -= 200;  // penalize ignoring the threat
@@ -79,8 +148,8 @@ public class DivideAndConquerStrategy implements CpuStrategy {
         }
 
         // Mobility difference
-        score += newState.generateLegalMoves(cpuCode).size() * 4;
-        score -= newState.generateLegalMoves(humanCode).size() * 4;
+        score += newState.mobility(cpuCode) * 4;
+        score -= newState.mobility(humanCode) * 4;
 
         // Ring control
         if (Constants.INNER_RING.contains(m.to)) score += 12;
@@ -121,31 +190,6 @@ public class DivideAndConquerStrategy implements CpuStrategy {
         return mergeSorted(mergeSorted(a, b), c);
     }
 
-    // ===============================================================
-    // CHECK IF HUMAN ABOUT TO FORM MILL
-    // ===============================================================
-    private boolean hasMillThreat(Board b, Player human) {
-        for (Move m : b.generateLegalMoves(human.code())) {
-            Board c = b.clone();
-            c.applyMove(m, human.code());
-            if (c.hasAnyMill(human.code())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean blocksOpponentMill(Board b, Move cpuMove, Player human) {
-        for (Move m : b.generateLegalMoves(human.code())) {
-            Board c = b.clone();
-            c.applyMove(m, human.code());
-            if (c.hasAnyMill(human.code())) {
-                if (cpuMove.to == m.to) return true;
-            }
-        }
-        return false;
-    }
-
     // ===============================================================
     // HELPER CLASS
     // ===============================================================
@@ -1,217 +1,286 @@
 package morris.ai;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import morris.model.Board;
 import morris.model.Move;
+import morris.model.MoveList;
 import morris.model.Player;
 import morris.util.Constants;
 
 public class DpStrategy implements CpuStrategy {
 
-    private final Map<String, Integer> dpCache = new HashMap<>();
+    private static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+    private static final int DEFAULT_TABLE_CAPACITY = 1 << 17;
+    private static final int DEFAULT_MAX_DEPTH = 4;
+    private static final long DEFAULT_TIME_LIMIT_MS = 300;
+    private static final int NOT_CACHED = Integer.MIN_VALUE;
+    private static final int WIN_SCORE = 100_000;
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    // evaluations and subproblem values are kept across moves of a game;
+    // both are cleared only if the cpu side changes
+    private final EvalCache dpCache;
+    private final TranspositionTable table;
+    private final MoveStack stack = new MoveStack();
+    private int cachedCpuCode = -1;
+
+    private Evaluator evaluator;
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MS;
+
+    // per-search state
+    private long deadline;
+    private boolean timeUp;
+    private SearchStats stats = new SearchStats();
+
+    public DpStrategy() {
+        this(DEFAULT_CACHE_CAPACITY);
+    }
 
-    @Override
-    public Move getBestMove(Board board, Player cpu, Player human) {
-        List<Move> moves = board.generateLegalMoves(cpu.code());
-        if (moves.isEmpty()) return null;
+    public DpStrategy(int cacheCapacity) {
+        this.dpCache = new EvalCache(cacheCapacity);
+        this.table = new TranspositionTable(DEFAULT_TABLE_CAPACITY);
+        setWeights(EvalWeights.global());
+    }
 
-        // Always prioritize immediate tactical mill, in placement and movement.
-        Move immediateMill = chooseImmediateMillMove(board, moves, cpu, human);
-        if (immediateMill != null) {
-            return immediateMill;
-        }
+    public DpStrategy(int maxDepth, long timeLimitMillis) {
+        this();
+        setMaxDepth(maxDepth);
+        setTimeLimitMillis(timeLimitMillis);
+    }
 
-        // Placement phase fallback
-        if (moves.get(0).from == -1) {
-            return choosePlacementMove(board, moves, cpu, human);
-        }
+    public EvalCache getCache() {
+        return dpCache;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
 
+    public void setWeights(EvalWeights weights) {
+        setEvaluator(LinearEvaluator.dp(weights));
+    }
+
+    // cached evaluations and subproblem values depend on the evaluator, so both are dropped
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
         dpCache.clear();
+        table.clear();
+    }
 
-        Move bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = Math.max(1, maxDepth); }
 
-        for (Move m : moves) {
-            Board afterCpu = board.clone();
-            afterCpu.applyMove(m, cpu.code());
+    // <= 0 means no time limit, only the depth limit applies
+    public long getTimeLimitMillis() { return timeLimitMillis; }
+    public void setTimeLimitMillis(long timeLimitMillis) { this.timeLimitMillis = timeLimitMillis; }
 
-            int score = scoreMoveWithShallowDP(afterCpu, m, cpu, human);
+    @Override
+    public SearchStats getLastStats() {
+        return stats;
+    }
 
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = m;
-            }
+    @Override
+    public Move getBestMove(Board board, Player cpu, Player human) {
+        stats = new SearchStats();
+        if (cachedCpuCode != cpu.code()) {
+            dpCache.clear();
+            table.clear();
+            cachedCpuCode = cpu.code();
         }
 
-        return bestMove;
+        // search mutates a private copy with make/unmake
+        Board state = board.clone();
+        MoveList moves = stack.moves(0);
+        state.generateLegalMoves(cpu.code(), moves);
+        if (moves.isEmpty()) return null;
+
+        // Always prioritize immediate tactical mill, in placement and movement.
+        int immediateMill = chooseImmediateMillMove(state, moves, cpu, human);
+        if (immediateMill != MoveList.NONE) {
+            return MoveList.toMove(immediateMill);
+        }
+
+        return MoveList.toMove(searchBestMove(state, moves, cpu, human));
     }
 
-    private Move chooseImmediateMillMove(Board board, List<Move> moves, Player cpu, Player human) {
-        Move bestMove = null;
+    private int chooseImmediateMillMove(Board state, MoveList moves, Player cpu, Player human) {
+        int bestMove = MoveList.NONE;
         int bestScore = Integer.MIN_VALUE;
 
-        for (Move m : moves) {
-            Board c = board.clone();
-            c.applyMove(m, cpu.code());
-            if (!c.formsMill(cpu.code(), m.to)) continue;
-
-            applyBestRemoval(c, cpu, human, true, cpu, human);
-            int score = evaluate(c, cpu, human);
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            state.makeMove(m, cpu.code());
+            boolean mill = state.formsMill(cpu.code(), MoveList.to(m));
+            state.unmakeMove(m, cpu.code());
+            if (!mill) continue;
+
+            int full = withBestRemoval(state, m, cpu, human, true, cpu, human);
+            state.makeMove(full, cpu.code());
+            int score = evaluate(state, cpu, human);
+            state.unmakeMove(full, cpu.code());
             if (score > bestScore) {
                 bestScore = score;
-                bestMove = m;
+                bestMove = full;
             }
         }
         return bestMove;
     }
 
-    private Move choosePlacementMove(Board board, List<Move> moves, Player cpu, Player human) {
-        // 1) Immediate mill
-        for (Move m : moves) {
-            Board c = board.clone();
-            c.applyMove(m, cpu.code());
-            if (c.formsMill(cpu.code(), m.to)) return m;
+    // ------------------------ Memoized depth-limited search ------------------------
+    // Iterative deepening over plies; each (position, side to move) value is
+    // remembered with its depth and bound type, so sibling branches that transpose
+    // and the next move's search reuse earlier work.
+    private int searchBestMove(Board state, MoveList moves, Player cpu, Player human) {
+        deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        timeUp = false;
+
+        int[] children = new int[moves.size()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = withBestRemoval(state, moves.get(i), cpu, human, true, cpu, human);
         }
-        // 2) Block human immediate mill
-        for (Move hm : board.generateLegalMoves(human.code())) {
-            Board hc = board.clone();
-            hc.applyMove(hm, human.code());
-            if (hc.formsMill(human.code(), hm.to)) {
-                for (Move m : moves) if (m.to == hm.to) return m;
+
+        int bestIndex = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int alpha = -WIN_SCORE - 1;
+            int iterBest = -1;
+            int iterScore = Integer.MIN_VALUE;
+
+            // previous iteration's best move first
+            for (int n = 0; n < children.length; n++) {
+                int i = (n == 0) ? bestIndex : (n <= bestIndex ? n - 1 : n);
+                state.makeMove(children[i], cpu.code());
+                int score = search(state, depth - 1, false, alpha, WIN_SCORE + 1, 1, cpu, human);
+                state.unmakeMove(children[i], cpu.code());
+                if (timeUp) break;
+                if (score > iterScore) {
+                    iterScore = score;
+                    iterBest = i;
+                }
+                alpha = Math.max(alpha, score);
             }
+            if (timeUp) break; // keep the last completed iteration's choice
+
+            bestIndex = iterBest;
+            stats.depth = depth;
+            if (iterScore >= WIN_SCORE) break;
         }
-        // 3) Prefer inner ring, then middle ring
-        for (Move m : moves) if (Constants.INNER_RING.contains(m.to)) return m;
-        for (Move m : moves) if (Constants.MIDDLE_RING.contains(m.to)) return m;
-        return moves.get(0);
-    }
-    private int scoreMoveWithShallowDP(Board afterCpu, Move cpuMove, Player cpu, Player human) {
-        if (afterCpu.formsMill(cpu.code(), cpuMove.to)) {
-            applyBestRemoval(afterCpu, cpu, human, true, cpu, human);
+        return children[bestIndex];
+    }
+
+    private int search(Board state, int depth, boolean cpuToMove, int alpha, int beta, int ply, Player cpu, Player human) {
+        if (++stats.nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) timeUp = true;
+        if (timeUp) return 0;
+        stats.reachedPly(ply);
+
+        if (depth == 0 || isDecided(state, cpu, human)) return evaluateWithCache(state, cpu, human);
+
+        long key = TranspositionTable.key(state.positionKey(), cpuToMove);
+        int hashMove = TranspositionTable.NO_MOVE;
+        stats.ttProbes++;
+        if (table.probe(key)) {
+            stats.ttHits++;
+            hashMove = table.move();
+            if (table.depth() >= depth) {
+                int v = table.value();
+                byte flag = table.flag();
+                if (flag == TranspositionTable.EXACT) return v;
+                if (flag == TranspositionTable.LOWER_BOUND) alpha = Math.max(alpha, v);
+                else beta = Math.min(beta, v);
+                if (alpha >= beta) return v;
+            }
         }
 
-        int myEval = evaluateWithCache(afterCpu, cpu, human);
+        Player mover = cpuToMove ? cpu : human;
+        Player other = cpuToMove ? human : cpu;
+        MoveList moves = stack.moves(ply);
+        state.generateLegalMoves(mover.code(), moves);
+        if (moves.isEmpty()) return cpuToMove ? -WIN_SCORE : WIN_SCORE;
 
-        List<Move> oppMoves = afterCpu.generateLegalMoves(human.code());
-        if (oppMoves.isEmpty()) {
-            return myEval + 50_000;
+        // try the remembered best move of this subproblem first
+        if (hashMove != TranspositionTable.NO_MOVE) {
+            int idx = moves.indexOf(hashMove);
+            if (idx > 0) moves.moveToFront(idx);
         }
 
-        int worstForCpu = Integer.MAX_VALUE;
-        for (Move om : oppMoves) {
-            Board afterOpp = afterCpu.clone();
-            afterOpp.applyMove(om, human.code());
-
-            if (afterOpp.formsMill(human.code(), om.to)) {
-                applyBestRemoval(afterOpp, human, cpu, false, cpu, human);
+        int alphaOrig = alpha;
+        int betaOrig = beta;
+        int best = cpuToMove ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = TranspositionTable.NO_MOVE;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            int full = withBestRemoval(state, m, mover, other, cpuToMove, cpu, human);
+            state.makeMove(full, mover.code());
+            int v = search(state, depth - 1, !cpuToMove, alpha, beta, ply + 1, cpu, human);
+            state.unmakeMove(full, mover.code());
+            if (timeUp) return 0;
+
+            if (cpuToMove ? v > best : v < best) {
+                best = v;
+                bestMove = m;
+            }
+            if (cpuToMove) alpha = Math.max(alpha, best);
+            else beta = Math.min(beta, best);
+            if (alpha >= beta) {
+                stats.cutoff(i == 0);
+                break;
             }
-
-            int v = evaluateWithCache(afterOpp, cpu, human);
-            if (v < worstForCpu) worstForCpu = v;
         }
 
-        return worstForCpu;
+        byte flag;
+        if (best <= alphaOrig) flag = TranspositionTable.UPPER_BOUND;
+        else if (best >= betaOrig) flag = TranspositionTable.LOWER_BOUND;
+        else flag = TranspositionTable.EXACT;
+        table.store(key, depth, best, flag, bestMove);
+        return best;
+    }
+
+    private boolean isDecided(Board b, Player cpu, Player human) {
+        if (b.isPlacementPhase()) return false;
+        return b.countPieces(cpu.code()) <= 2 || b.countPieces(human.code()) <= 2;
     }
 
     private int evaluateWithCache(Board b, Player cpu, Player human) {
-        String key = encode(b);
-        Integer cached = dpCache.get(key);
-        if (cached != null) return cached;
+        long key = b.positionKey();
+        stats.cacheProbes++;
+        int cached = dpCache.get(key, NOT_CACHED);
+        if (cached != NOT_CACHED) {
+            stats.cacheHits++;
+            return cached;
+        }
         int value = evaluate(b, cpu, human);
         dpCache.put(key, value);
         return value;
     }
 
-    private boolean blocksOpponentMill(Board board, Move m, Player opponent) {
-        for (Move om : board.generateLegalMoves(opponent.code())) {
-            Board c = board.clone();
-            c.applyMove(om, opponent.code());
-            if (c.hasAnyMill(opponent.code()) && m.to == om.to) return true;
-        }
-        return false;
-    }
+    // 'move' plus the capture the mover picks by (cached) static eval, or 'move' itself
+    // when it does not close a mill
+    private int withBestRemoval(Board state, int move, Player attacker, Player defender, boolean maximizeCpuEval, Player cpu, Player human) {
+        state.makeMove(move, attacker.code());
+        int candidates = state.formsMill(attacker.code(), MoveList.to(move))
+                ? state.removableMask(defender.code()) : 0;
 
-    private void applyBestRemoval(Board board, Player attacker, Player defender, boolean maximizeCpuEval, Player cpu, Player human) {
-        List<Integer> candidates = board.candidateRemovals(defender.code());
-        if (candidates.isEmpty()) return;
-
-        Integer bestRemoval = null;
+        int best = move;
         int bestScore = maximizeCpuEval ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int idx = 0; idx < 24; idx++) {
+            if ((candidates & (1 << idx)) == 0) continue;
+            state.setCell(idx, Constants.EMPTY);
+            int score = evaluateWithCache(state, cpu, human);
+            state.setCell(idx, defender.code());
 
-        for (int idx : candidates) {
-            Board clone = board.clone();
-            clone.getCells()[idx] = Constants.EMPTY;
-            int score = evaluateWithCache(clone, cpu, human);
-
-            if (maximizeCpuEval) {
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestRemoval = idx;
-                }
-            } else {
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestRemoval = idx;
-                }
+            if (maximizeCpuEval ? score > bestScore : score < bestScore) {
+                bestScore = score;
+                best = MoveList.withRemoval(move, idx);
             }
         }
-
-        if (bestRemoval != null) board.getCells()[bestRemoval] = Constants.EMPTY;
-    }
-
-    // ------------------------ Encoding / Utilities ------------------------
-    private String encode(Board b) {
-        // compact string of 24 chars '0','1','2' representing cells
-        char[] arr = new char[24];
-        int[] cells = b.getCells();
-        for (int i = 0; i < 24; i++) arr[i] = (char) ('0' + cells[i]);
-        return new String(arr);
+        state.unmakeMove(move, attacker.code());
+        return best;
     }
 
     // ------------------------ Evaluation ------------------------
     private int evaluate(Board b, Player cpu, Player human) {
-        int cpuCount = b.countPieces(cpu.code());
-        int humanCount = b.countPieces(human.code());
-        boolean placement = b.generateLegalMoves(cpu.code()).stream().anyMatch(m -> m.from == -1);
-        if (!placement && cpuCount <= 2) return -100000;
-        if (!placement && humanCount <= 2) return 100000;
-
-        int score = 0;
-        score += (cpuCount - humanCount) * 120;
-        score += (b.generateLegalMoves(cpu.code()).size() - b.generateLegalMoves(human.code()).size()) * 10;
-        score += millPotential(b, cpu) * 40;
-        score -= millPotential(b, human) * 45;
-        score += twoInRow(b, cpu) * 6;
-        score -= twoInRow(b, human) * 8;
-        score += b.countPiecesInList(cpu.code(), Constants.MIDDLE_RING) * 5;
-        score += b.countPiecesInList(cpu.code(), Constants.INNER_RING) * 8;
-        score -= b.countPiecesInList(human.code(), Constants.MIDDLE_RING) * 5;
-        score -= b.countPiecesInList(human.code(), Constants.INNER_RING) * 8;
-        return score;
-    }
-
-    private int millPotential(Board b, Player p) {
-        int c = 0;
-        for (int[] mill : Constants.MILLS) {
-            int own = 0, empty = 0;
-            for (int idx : mill) {
-                if (b.getCells()[idx] == p.code()) own++;
-                else if (b.getCells()[idx] == 0) empty++;
-            }
-            if (own == 2 && empty == 1) c++;
-        }
-        return c;
-    }
-
-    private int twoInRow(Board b, Player p) {
-        int count = 0;
-        for (int[] mill : Constants.MILLS) {
-            int own = 0;
-            for (int idx : mill) if (b.getCells()[idx] == p.code()) own++;
-            if (own == 2) count++;
-        }
-        return count;
+        stats.leafEvals++;
+        return evaluator.evaluate(b, cpu.code());
     }
 }
@@ -0,0 +1,143 @@
+package morris.ai;
+
+import java.util.Arrays;
+import morris.metrics.CacheProbeEvent;
+
+/**
+ * Bounded evaluation cache keyed by packed position keys (see PositionCodec).
+ *
+ * Open addressing on a power-of-two table of primitive arrays. A key may live in
+ * any of PROBE_LIMIT consecutive slots after its home slot; when all of them are
+ * taken the victim is picked CLOCK-style (slots that were read since the last
+ * sweep get a second chance). Entries are only ever overwritten, never deleted,
+ * so lookups can stop at the first empty slot.
+ *
+ * Not thread-safe: one instance per strategy.
+ */
+public class EvalCache {
+
+    private static final long EMPTY_KEY = -1L; // position keys are always >= 0
+    private static final int PROBE_LIMIT = 8;
+
+    private final long[] keys;
+    private final int[] values;
+    private final boolean[] referenced;
+    private final int mask;
+    private int hand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+
+    public EvalCache(int capacity) {
+        // rounded up to a power of two
+        int cap = capacity <= PROBE_LIMIT ? PROBE_LIMIT : Integer.highestOneBit(capacity - 1) << 1;
+        keys = new long[cap];
+        values = new int[cap];
+        referenced = new boolean[cap];
+        mask = cap - 1;
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+
+    // cached value, or missingValue when the key is not present
+    public int get(long key, int missingValue) {
+        int slot = home(key);
+        for (int p = 0; p < PROBE_LIMIT; p++, slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                referenced[slot] = true;
+                hits++;
+                CacheProbeEvent.emit("eval", key, true);
+                return values[slot];
+            }
+            if (k == EMPTY_KEY) break;
+        }
+        misses++;
+        CacheProbeEvent.emit("eval", key, false);
+        return missingValue;
+    }
+
+    public boolean contains(long key) {
+        int slot = home(key);
+        for (int p = 0; p < PROBE_LIMIT; p++, slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) return true;
+            if (k == EMPTY_KEY) return false;
+        }
+        return false;
+    }
+
+    public void put(long key, int value) {
+        int start = home(key);
+        int slot = start;
+        for (int p = 0; p < PROBE_LIMIT; p++, slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                values[slot] = value;
+                return;
+            }
+            if (k == EMPTY_KEY) {
+                keys[slot] = key;
+                values[slot] = value;
+                referenced[slot] = false;
+                size++;
+                return;
+            }
+        }
+
+        // window full: sweep from the clock hand, clearing reference bits
+        int victim = -1;
+        for (int p = 0; p < PROBE_LIMIT * 2; p++) {
+            int s = (start + ((hand + p) % PROBE_LIMIT)) & mask;
+            if (!referenced[s]) {
+                victim = s;
+                break;
+            }
+            referenced[s] = false;
+        }
+        hand = (hand + 1) % PROBE_LIMIT;
+        keys[victim] = key;
+        values[victim] = value;
+        referenced[victim] = false;
+        evictions++;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(referenced, false);
+        size = 0;
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public int capacity() { return keys.length; }
+    public int size() { return size; }
+    public long hits() { return hits; }
+    public long misses() { return misses; }
+    public long evictions() { return evictions; }
+
+    public double hitRate() {
+        long probes = hits + misses;
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EvalCache(size=%d/%d, hitRate=%.1f%%, evictions=%d)",
+                size, keys.length, hitRate() * 100, evictions);
+    }
+
+    private int home(long key) {
+        // splitmix64 finalizer, keys differ mostly in low cell bits
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        h = h ^ (h >>> 31);
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,169 @@
+package morris.ai;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Named integer weights of the strategies' evaluation functions, grouped by a
+ * "strategy." key prefix. The defaults are the original hand-picked constants.
+ *
+ * A weight file is a properties file with any subset of the keys, e.g. as written
+ * by morris.tuning.TuneWeights:
+ *   backtracking.piece=120
+ *   dp.mobility=10
+ * Strategies take their weights from global(), which loads the file named by
+ * -Dmorris.weights=FILE once; keys missing from the file keep their defaults.
+ * Instances are immutable.
+ */
+public final class EvalWeights {
+
+    public static final String PROPERTY = "morris.weights";
+
+    private static final Map<String, Integer> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("backtracking.piece", 120);
+        DEFAULTS.put("backtracking.mobility", 8);
+        DEFAULTS.put("backtracking.mill", 80);
+        DEFAULTS.put("backtracking.nearMill", 35);
+        DEFAULTS.put("backtracking.blocked", 50);
+        DEFAULTS.put("backtracking.cluster", 6);
+        DEFAULTS.put("backtracking.innerRing", 8);
+        DEFAULTS.put("backtracking.middleRing", 5);
+
+        DEFAULTS.put("dp.piece", 120);
+        DEFAULTS.put("dp.mobility", 10);
+        DEFAULTS.put("dp.nearMill", 40);
+        DEFAULTS.put("dp.oppNearMill", 45);
+        DEFAULTS.put("dp.twoInRow", 6);
+        DEFAULTS.put("dp.oppTwoInRow", 8);
+        DEFAULTS.put("dp.innerRing", 8);
+        DEFAULTS.put("dp.middleRing", 5);
+
+        DEFAULTS.put("greedy.mill", 100);
+        DEFAULTS.put("greedy.block", 120);
+        DEFAULTS.put("greedy.degree", 10);
+        DEFAULTS.put("greedy.oppMobility", 12);
+        DEFAULTS.put("greedy.mobility", 3);
+        DEFAULTS.put("greedy.cluster", 7);
+        DEFAULTS.put("greedy.oppCluster", 8);
+        DEFAULTS.put("greedy.innerRing", 5);
+        DEFAULTS.put("greedy.middleRing", 3);
+    }
+
+    private static final EvalWeights DEFAULT = new EvalWeights(DEFAULTS);
+    private static volatile EvalWeights global;
+
+    private final Map<String, Integer> values;
+
+    private EvalWeights(Map<String, Integer> values) {
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    public static EvalWeights defaults() {
+        return DEFAULT;
+    }
+
+    // the -Dmorris.weights file, or the defaults if it is unset or unreadable
+    public static EvalWeights global() {
+        EvalWeights w = global;
+        if (w != null) return w;
+        synchronized (EvalWeights.class) {
+            if (global == null) global = fromSystemProperty();
+            return global;
+        }
+    }
+
+    private static EvalWeights fromSystemProperty() {
+        String file = System.getProperty(PROPERTY);
+        if (file == null) return DEFAULT;
+        try {
+            return load(Paths.get(file));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Evaluation weights not loaded, using defaults: " + e.getMessage());
+            return DEFAULT;
+        }
+    }
+
+    public static EvalWeights load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(in);
+        }
+        Map<String, Integer> values = new LinkedHashMap<>(DEFAULTS);
+        for (String key : props.stringPropertyNames()) {
+            if (!DEFAULTS.containsKey(key)) throw new IllegalArgumentException("Unknown weight '" + key + "' in " + file);
+            String raw = props.getProperty(key).trim();
+            try {
+                values.put(key, Integer.parseInt(raw));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Weight '" + key + "' is not an integer: " + raw);
+            }
+        }
+        return new EvalWeights(values);
+    }
+
+    // writes every weight, one block per strategy prefix
+    public void save(Path file, String comment) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (comment != null) {
+                for (String line : comment.split("\n")) out.write("# " + line + "\n");
+            }
+            String prefix = null;
+            for (Map.Entry<String, Integer> e : values.entrySet()) {
+                String p = e.getKey().substring(0, e.getKey().indexOf('.'));
+                if (prefix != null && !p.equals(prefix)) out.write("\n");
+                prefix = p;
+                out.write(e.getKey() + "=" + e.getValue() + "\n");
+            }
+        }
+    }
+
+    public int get(String key) {
+        Integer v = values.get(key);
+        if (v == null) throw new IllegalArgumentException("Unknown weight: " + key);
+        return v;
+    }
+
+    public EvalWeights with(String key, int value) {
+        get(key);
+        Map<String, Integer> copy = new LinkedHashMap<>(values);
+        copy.put(key, value);
+        return new EvalWeights(copy);
+    }
+
+    // all keys, or those starting with prefix (e.g. "dp."), in definition order
+    public static List<String> keys(String prefix) {
+        List<String> keys = new ArrayList<>();
+        for (String key : DEFAULTS.keySet()) {
+            if (prefix == null || key.startsWith(prefix)) keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EvalWeights && values.equals(((EvalWeights) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
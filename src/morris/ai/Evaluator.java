@@ -0,0 +1,14 @@
+package morris.ai;
+
+import morris.model.Board;
+
+/**
+ * Static evaluation of a position, shared by the search strategies.
+ * Implementations may keep scratch state and need not be thread-safe; each
+ * strategy instance owns its evaluator.
+ */
+public interface Evaluator {
+
+    // score from maxCode's point of view, higher is better for maxCode
+    int evaluate(Board board, int maxCode);
+}
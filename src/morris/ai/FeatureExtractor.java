@@ -0,0 +1,68 @@
+package morris.ai;
+
+import morris.model.Board;
+import morris.util.BitGraph;
+import morris.util.Constants;
+
+/**
+ * Computes every Features value of a position for both sides at once from the
+ * board's occupancy masks: one pass over the 16 mills and a few BitGraph mask
+ * operations per side. This is the single implementation behind the
+ * strategies' evaluations (LinearEvaluator) and the tuning features.
+ */
+public final class FeatureExtractor {
+
+    private FeatureExtractor() {}
+
+    public static void extract(Board board, Features out) {
+        int human = board.occupancyMask(Constants.HUMAN);
+        int cpu = board.occupancyMask(Constants.CPU);
+        int empty = ~(human | cpu) & Constants.ALL_POINTS;
+        boolean placement = board.isPlacementPhase();
+        int[] h = out.human;
+        int[] c = out.cpu;
+
+        int hMills = 0, hNear = 0, hTwo = 0, cMills = 0, cNear = 0, cTwo = 0;
+        for (int mm : Constants.MILL_MASKS) {
+            int hc = Integer.bitCount(human & mm);
+            int cc = Integer.bitCount(cpu & mm);
+            if (hc == 3) hMills++;
+            else if (hc == 2) {
+                hTwo++;
+                if (cc == 0) hNear++;
+            }
+            if (cc == 3) cMills++;
+            else if (cc == 2) {
+                cTwo++;
+                if (hc == 0) cNear++;
+            }
+        }
+
+        int hSteps = BitGraph.steps(human, empty);
+        int cSteps = BitGraph.steps(cpu, empty);
+        int hBlocked = Integer.bitCount(BitGraph.blocked(human, empty));
+        int cBlocked = Integer.bitCount(BitGraph.blocked(cpu, empty));
+
+        int emptyCount = Integer.bitCount(empty);
+        fill(h, human, hMills, hNear, hTwo, hSteps, hBlocked, emptyCount, placement);
+        fill(c, cpu, cMills, cNear, cTwo, cSteps, cBlocked, emptyCount, placement);
+        out.placement = placement;
+        out.humanLost = !placement && (h[Features.PIECES] <= 2 || h[Features.MOBILITY] == 0);
+        out.cpuLost = !placement && (c[Features.PIECES] <= 2 || c[Features.MOBILITY] == 0);
+    }
+
+    private static void fill(int[] side, int own, int mills, int near, int two, int steps, int blocked,
+                             int emptyCount, boolean placement) {
+        int pieces = Integer.bitCount(own);
+        boolean flying = !placement && pieces == 3;
+        side[Features.PIECES] = pieces;
+        side[Features.MOBILITY] = placement ? emptyCount : flying ? pieces * emptyCount : steps;
+        side[Features.MILLS] = mills;
+        side[Features.NEAR_MILLS] = near;
+        side[Features.TWO_IN_ROW] = two;
+        side[Features.BLOCKED] = placement || flying ? 0 : blocked;
+        side[Features.CLUSTER] = BitGraph.largestCluster(own);
+        side[Features.INNER_RING] = Integer.bitCount(own & Constants.INNER_RING_MASK);
+        side[Features.MIDDLE_RING] = Integer.bitCount(own & Constants.MIDDLE_RING_MASK);
+    }
+}
@@ -0,0 +1,46 @@
+package morris.ai;
+
+import morris.util.Constants;
+
+/**
+ * Evaluation features of one position for both sides, filled by
+ * FeatureExtractor.extract. Values are indexed by the feature constants below;
+ * instances are reused between extractions.
+ */
+public final class Features {
+
+    public static final int PIECES = 0;       // pieces on the board
+    public static final int MOBILITY = 1;     // legal moves (placement: empty points, flying: pieces * empty points)
+    public static final int MILLS = 2;        // complete mills
+    public static final int NEAR_MILLS = 3;   // two own pieces and an empty third point
+    public static final int TWO_IN_ROW = 4;   // exactly two own pieces, third point empty or not
+    public static final int BLOCKED = 5;      // pieces without an empty neighbour (0 during placement and flying)
+    public static final int CLUSTER = 6;      // size of the largest group of adjacent pieces
+    public static final int INNER_RING = 7;   // pieces on the inner ring
+    public static final int MIDDLE_RING = 8;  // pieces on the middle ring
+    public static final int COUNT = 9;
+
+    final int[] human = new int[COUNT];
+    final int[] cpu = new int[COUNT];
+    boolean placement;
+    boolean humanLost;
+    boolean cpuLost;
+
+    public int get(int playerCode, int feature) {
+        return side(playerCode)[feature];
+    }
+
+    public boolean isPlacement() {
+        return placement;
+    }
+
+    // same as Rules.isGameOver(board, playerCode): placement is over and the
+    // player has two pieces or fewer or no legal move
+    public boolean hasLost(int playerCode) {
+        return playerCode == Constants.HUMAN ? humanLost : cpuLost;
+    }
+
+    int[] side(int playerCode) {
+        return playerCode == Constants.HUMAN ? human : cpu;
+    }
+}
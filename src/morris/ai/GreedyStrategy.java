@@ -1,142 +1,128 @@
 package morris.ai;
 
 import java.util.*;
+import java.util.stream.IntStream;
 import morris.model.Board;
 import morris.model.Move;
 import morris.model.Player;
+import morris.model.ThreatMap;
 import morris.util.Constants;
 
 public class GreedyStrategy implements CpuStrategy {
 
+    // below this many candidates the fork-join overhead outweighs the scoring
+    private static final int PARALLEL_MIN_MOVES = 24;
+
+    private SearchStats stats = new SearchStats();
+
+    // move bonuses from EvalWeights "greedy.*"; the position terms are in 'positional'
+    private int millValue, blockValue, degreeValue, oppMobilityValue;
+    private LinearEvaluator positional;
+    // -Dmorris.parallel=true turns it on for every new instance
+    private boolean parallel = Boolean.getBoolean("morris.parallel");
+
+    public GreedyStrategy() {
+        setWeights(EvalWeights.global());
+    }
+
+    public void setWeights(EvalWeights weights) {
+        millValue = weights.get("greedy.mill");
+        blockValue = weights.get("greedy.block");
+        degreeValue = weights.get("greedy.degree");
+        oppMobilityValue = weights.get("greedy.oppMobility");
+        positional = LinearEvaluator.greedy(weights);
+    }
+
+    // score candidates on the common fork-join pool; the chosen move is the same either way,
+    // on a single core it only adds overhead
+    public boolean isParallel() { return parallel; }
+    public void setParallel(boolean parallel) { this.parallel = parallel; }
+
+    @Override
+    public SearchStats getLastStats() {
+        return stats;
+    }
+
     @Override
     public Move getBestMove(Board board, Player cpu, Player human) {
+        stats = new SearchStats();
+        stats.depth = 1;
+        stats.reachedPly(1);
         List<Move> moves = board.generateLegalMoves(cpu.code());
         if (moves.isEmpty()) return null;
 
+        // root facts shared by every candidate
+        int humanMobilityBefore = board.mobility(human.code());
+        int threatTargets = ThreatMap.millTargets(board, human.code());
+
+        int[] scores = new int[moves.size()];
+        if (parallel && moves.size() >= PARALLEL_MIN_MOVES) {
+            IntStream.range(0, scores.length).parallel().forEach(i ->
+                    scores[i] = score(board, moves.get(i), cpu, humanMobilityBefore, threatTargets, new Features()));
+        } else {
+            Features features = new Features();
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = score(board, moves.get(i), cpu, humanMobilityBefore, threatTargets, features);
+            }
+        }
+        stats.nodes += scores.length;
+        stats.leafEvals += scores.length;
+
+        // first best in generation order, as in the sequential scan
         Move best = null;
         int bestScore = Integer.MIN_VALUE;
-
-        for (Move m : moves) {
-            Board clone = board.clone();
-            clone.applyMove(m, cpu.code());
-
-            int score = evaluate(clone, board, m, cpu, human);
-
-            if (score > bestScore) {
-                bestScore = score;
-                best = m;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > bestScore) {
+                bestScore = scores[i];
+                best = moves.get(i);
             }
         }
-
         return best;
     }
 
+    private int score(Board board, Move m, Player cpu,
+                      int humanMobilityBefore, int threatTargets, Features features) {
+        Board clone = board.clone();
+        clone.applyMove(m, cpu.code());
+        return evaluate(clone, m, cpu, humanMobilityBefore, threatTargets, features);
+    }
+
     // ---------------------------------------------------------
     // GRAPH-BASED GREEDY EVALUATION
     // ---------------------------------------------------------
-    private int evaluate(Board newState, Board oldState, Move move,
-                         Player cpu, Player human) {
+    private int evaluate(Board newState, Move move, Player cpu,
+                         int humanMobilityBefore, int threatTargets, Features features) {
 
         int score = 0;
         int cpuCode = cpu.code();
-        int humanCode = human.code();
 
         // -------------------------
         // 1. Mill formation
         // -------------------------
         if (newState.formsMill(cpuCode, move.to))
-            score += 100;
+            score += millValue;
 
         // -------------------------
         // 2. Block opponent mill
         // -------------------------
-        if (blocksOpponentMill(oldState, move, human)) {
-            score += 120;
+        if ((threatTargets & (1 << move.to)) != 0) {
+            score += blockValue;
         }
 
         // -------------------------
         // 3. Graph-based: Node centrality (degree)
         // -------------------------
         int degree = Constants.ADJ.get(move.to).size();
-        score += degree * 10;
-
-        // -------------------------
-        // 4. Graph-based: Opponent mobility reduction
-        // -------------------------
-        int before = oldState.generateLegalMoves(humanCode).size();
-        int after  = newState.generateLegalMoves(humanCode).size();
-        score += (before - after) * 12;
+        score += degree * degreeValue;
 
         // -------------------------
-        // 5. Graph-based: CPU mobility improvement
+        // 4-7. Graph-based position terms: opponent mobility reduction,
+        //      CPU mobility, connected components, ring control
         // -------------------------
-        score += newState.generateLegalMoves(cpuCode).size() * 3;
-
-        // -------------------------
-        // 6. Graph-based: Connected component advantage
-        // -------------------------
-        score += largestCluster(newState, cpuCode) * 7;
-        score -= largestCluster(newState, humanCode) * 8;
-
-        // -------------------------
-        // 7. Ring control (outer → middle → inner)
-        // -------------------------
-        score += newState.countPiecesInList(cpuCode, Constants.INNER_RING) * 5;
-        score += newState.countPiecesInList(cpuCode, Constants.MIDDLE_RING) * 3;
-
-        score -= newState.countPiecesInList(humanCode, Constants.INNER_RING) * 5;
-        score -= newState.countPiecesInList(humanCode, Constants.MIDDLE_RING) * 3;
+        score += humanMobilityBefore * oppMobilityValue;
+        FeatureExtractor.extract(newState, features);
+        score += positional.evaluate(features, cpuCode);
 
         return score;
     }
-
-    // ---------------------------------------------------------
-    // opponent threatens a mill
-    // ---------------------------------------------------------
-    private boolean blocksOpponentMill(Board b, Move cpuMove, Player human) {
-        for (Move m : b.generateLegalMoves(human.code())) {
-            Board c = b.clone();
-            c.applyMove(m, human.code());
-            if (c.hasAnyMill(human.code())) {
-                if (cpuMove.to == m.to) return true;
-            }
-        }
-        return false;
-    }
-
-    // ---------------------------------------------------------
-    // BFS for largest connected component of player's stones
-    // ---------------------------------------------------------
-    private int largestCluster(Board b, int player) {
-        boolean[] visited = new boolean[24];
-        int maxSize = 0;
-
-        for (int i = 0; i < 24; i++) {
-            if (!visited[i] && b.getCells()[i] == player) {
-                int size = bfsCluster(b, i, player, visited);
-                if (size > maxSize) maxSize = size;
-            }
-        }
-        return maxSize;
-    }
-
-    private int bfsCluster(Board b, int start, int player, boolean[] visited) {
-        Queue<Integer> q = new LinkedList<>();
-        q.add(start);
-        visited[start] = true;
-
-        int size = 1;
-
-        while (!q.isEmpty()) {
-            int u = q.poll();
-            for (int nb : Constants.ADJ.get(u)) {
-                if (!visited[nb] && b.getCells()[nb] == player) {
-                    visited[nb] = true;
-                    size++;
-                    q.add(nb);
-                }
-            }
-        }
-        return size;
-    }
 }
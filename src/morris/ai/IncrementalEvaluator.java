@@ -0,0 +1,18 @@
+package morris.ai;
+
+import morris.model.Board;
+
+/**
+ * An Evaluator that keeps per-ply state in step with a search's make/unmake.
+ * The search calls reset with its root position, make before every
+ * board.makeMove and unmake after the matching board.unmakeMove.
+ */
+public interface IncrementalEvaluator extends Evaluator {
+
+    void reset(Board root);
+
+    // 'before' is the position moverCode plays 'move' on, not yet changed
+    void make(Board before, int move, int moverCode);
+
+    void unmake();
+}
@@ -0,0 +1,134 @@
+package morris.ai;
+
+import morris.model.Board;
+import morris.model.Rules;
+
+import java.util.List;
+
+/**
+ * Weighted sum of Features, with the weights taken from EvalWeights.
+ *
+ * Each strategy's evaluation is a list of terms. A term ties one weight key to
+ * one feature, with a sign for each side: a term (w, f, +1, -1) adds
+ * w * (own f - opponent f), and a term (w, f, 0, -1) only subtracts
+ * w * opponent f. The terms fold into two per-feature weight vectors, so an
+ * evaluation is one FeatureExtractor pass and two dot products.
+ *
+ * The terminal rule also differs per strategy:
+ * - RULES scores +-WIN_SCORE for a side that has lost by the rules (few
+ *   pieces or no moves).
+ * - MATERIAL only looks at pieces.
+ * - NONE never scores a terminal position.
+ */
+public final class LinearEvaluator implements Evaluator {
+
+    public static final int WIN_SCORE = 100_000;
+
+    public enum Terminal { NONE, MATERIAL, RULES }
+
+    public static final class Term {
+        public final String key;
+        public final int feature;
+        public final int ownSign;
+        public final int oppSign;
+
+        Term(String key, int feature, int ownSign, int oppSign) {
+            this.key = key;
+            this.feature = feature;
+            this.ownSign = ownSign;
+            this.oppSign = oppSign;
+        }
+
+        // the term's feature value from maxCode's point of view (the weight's coefficient)
+        public int value(Features f, int maxCode) {
+            return ownSign * f.get(maxCode, feature) + oppSign * f.get(Rules.opponentOf(maxCode), feature);
+        }
+    }
+
+    private static Term diff(String key, int feature) {
+        return new Term(key, feature, 1, -1);
+    }
+
+    public static final List<Term> BACKTRACKING = List.of(
+            diff("backtracking.piece", Features.PIECES),
+            diff("backtracking.mobility", Features.MOBILITY),
+            diff("backtracking.mill", Features.MILLS),
+            diff("backtracking.nearMill", Features.NEAR_MILLS),
+            // blocked opponent pieces are good
+            new Term("backtracking.blocked", Features.BLOCKED, -1, 1),
+            diff("backtracking.cluster", Features.CLUSTER),
+            diff("backtracking.innerRing", Features.INNER_RING),
+            diff("backtracking.middleRing", Features.MIDDLE_RING));
+
+    public static final List<Term> DP = List.of(
+            diff("dp.piece", Features.PIECES),
+            diff("dp.mobility", Features.MOBILITY),
+            new Term("dp.nearMill", Features.NEAR_MILLS, 1, 0),
+            new Term("dp.oppNearMill", Features.NEAR_MILLS, 0, -1),
+            new Term("dp.twoInRow", Features.TWO_IN_ROW, 1, 0),
+            new Term("dp.oppTwoInRow", Features.TWO_IN_ROW, 0, -1),
+            diff("dp.innerRing", Features.INNER_RING),
+            diff("dp.middleRing", Features.MIDDLE_RING));
+
+    // position part of GreedyStrategy's move score; its move bonuses stay in the strategy
+    public static final List<Term> GREEDY = List.of(
+            new Term("greedy.mobility", Features.MOBILITY, 1, 0),
+            new Term("greedy.oppMobility", Features.MOBILITY, 0, -1),
+            new Term("greedy.cluster", Features.CLUSTER, 1, 0),
+            new Term("greedy.oppCluster", Features.CLUSTER, 0, -1),
+            diff("greedy.innerRing", Features.INNER_RING),
+            diff("greedy.middleRing", Features.MIDDLE_RING));
+
+    private final int[] own = new int[Features.COUNT];
+    private final int[] opp = new int[Features.COUNT];
+    private final Terminal terminal;
+    private final Features scratch = new Features();
+
+    public LinearEvaluator(List<Term> terms, EvalWeights weights, Terminal terminal) {
+        for (Term t : terms) {
+            int w = weights.get(t.key);
+            own[t.feature] += w * t.ownSign;
+            opp[t.feature] += w * t.oppSign;
+        }
+        this.terminal = terminal;
+    }
+
+    public static LinearEvaluator backtracking(EvalWeights weights) {
+        return new LinearEvaluator(BACKTRACKING, weights, Terminal.RULES);
+    }
+
+    public static LinearEvaluator dp(EvalWeights weights) {
+        return new LinearEvaluator(DP, weights, Terminal.MATERIAL);
+    }
+
+    public static LinearEvaluator greedy(EvalWeights weights) {
+        return new LinearEvaluator(GREEDY, weights, Terminal.NONE);
+    }
+
+    @Override
+    public int evaluate(Board board, int maxCode) {
+        FeatureExtractor.extract(board, scratch);
+        return evaluate(scratch, maxCode);
+    }
+
+    public int evaluate(Features f, int maxCode) {
+        int minCode = Rules.opponentOf(maxCode);
+        if (terminal == Terminal.RULES) {
+            if (f.hasLost(maxCode)) return -WIN_SCORE;
+            if (f.hasLost(minCode)) return WIN_SCORE;
+        } else if (terminal == Terminal.MATERIAL && !f.isPlacement()) {
+            if (f.get(maxCode, Features.PIECES) <= 2) return -WIN_SCORE;
+            if (f.get(minCode, Features.PIECES) <= 2) return WIN_SCORE;
+        }
+        int[] a = f.side(maxCode);
+        int[] b = f.side(minCode);
+        int score = 0;
+        for (int i = 0; i < Features.COUNT; i++) score += own[i] * a[i] + opp[i] * b[i];
+        return score;
+    }
+
+    // weight vectors on the maximizing side's and the opponent's features (read-only)
+    int[] ownWeights() { return own; }
+    int[] oppWeights() { return opp; }
+    Terminal terminal() { return terminal; }
+}
@@ -0,0 +1,384 @@
+package morris.ai;
+
+import morris.model.Board;
+import morris.model.Move;
+import morris.model.MoveList;
+import morris.model.Player;
+import morris.model.Rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo tree search (UCT) over complete moves (mill captures included).
+ *
+ * Worker threads share one tree (tree parallelization). A thread walking down
+ * adds a virtual loss to every node on its path, so concurrent walkers spread
+ * over different branches; the loss is taken back when the playout result is
+ * propagated. Node statistics are written under the node's lock and read
+ * without it - a stale read only blurs one selection.
+ *
+ * Each thread resets its own Board from the root with copyFrom and reuses one
+ * MoveList, so iterations do not allocate apart from newly expanded nodes.
+ * A leaf is expanded on its second visit. Playouts are random, except that with
+ * probability 'guidance' a mill-closing move is taken when one exists. Playouts
+ * longer than maxPlayoutPlies are scored from the material balance.
+ *
+ * The subtree under the position reached after our move and the opponent's
+ * reply is kept for the next call (tree reuse).
+ */
+public class MctsStrategy implements CpuStrategy {
+
+    private static final long DEFAULT_TIME_LIMIT_MS = 300;
+    private static final double DEFAULT_EXPLORATION = 1.0;
+    private static final int DEFAULT_VIRTUAL_LOSS = 3;
+    private static final int DEFAULT_MAX_PLAYOUT_PLIES = 120;
+    private static final double DEFAULT_GUIDANCE = 0.8;
+    private static final int DEFAULT_MAX_NODES = 1 << 21;
+
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MS;
+    private long maxIterations = 0;
+    private double exploration = DEFAULT_EXPLORATION;
+    private int virtualLoss = DEFAULT_VIRTUAL_LOSS;
+    private int maxPlayoutPlies = DEFAULT_MAX_PLAYOUT_PLIES;
+    private double guidance = DEFAULT_GUIDANCE;
+    private int maxNodes = DEFAULT_MAX_NODES;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+    private long searches;
+
+    // shared by all instances; idle workers die off after a minute
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger n = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "mcts-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    // tree kept between moves
+    private Node root;
+    private Board rootBoard;
+    private Node lastChosen;
+    private int treeCpuCode = -1;
+    private final AtomicInteger nodeCount = new AtomicInteger();
+
+    // per-search state
+    private int cpuCode, humanCode;
+    private long deadline;
+    private final AtomicLong iterations = new AtomicLong();
+    private SearchStats stats = new SearchStats();
+    private boolean lastReused;
+
+    private static final class Node {
+        Node parent;
+        final int move;       // packed move leading here, MoveList.NONE at the root
+        final int mover;      // player who played 'move'
+        Node[] children;      // null until expanded
+        int winner = Rules.ONGOING;
+        int visits;           // completed playouts plus in-flight virtual losses
+        int playouts;         // completed playouts only
+        double wins;          // from the mover's point of view
+
+        Node(Node parent, int move, int mover) {
+            this.parent = parent;
+            this.move = move;
+            this.mover = mover;
+        }
+    }
+
+    public MctsStrategy() {}
+
+    public MctsStrategy(long timeLimitMillis, int threads) {
+        setTimeLimitMillis(timeLimitMillis);
+        setThreads(threads);
+    }
+
+    // <= 0 means no time limit; then maxIterations must be set
+    public long getTimeLimitMillis() { return timeLimitMillis; }
+    public void setTimeLimitMillis(long timeLimitMillis) { this.timeLimitMillis = timeLimitMillis; }
+
+    // <= 0 means no iteration limit
+    public long getMaxIterations() { return maxIterations; }
+    public void setMaxIterations(long maxIterations) { this.maxIterations = maxIterations; }
+
+    public double getExploration() { return exploration; }
+    public void setExploration(double exploration) { this.exploration = exploration; }
+
+    public int getVirtualLoss() { return virtualLoss; }
+    public void setVirtualLoss(int virtualLoss) { this.virtualLoss = Math.max(0, virtualLoss); }
+
+    public int getMaxPlayoutPlies() { return maxPlayoutPlies; }
+    public void setMaxPlayoutPlies(int plies) { this.maxPlayoutPlies = Math.max(1, plies); }
+
+    // probability of playing a capture during a playout when one is available
+    public double getGuidance() { return guidance; }
+    public void setGuidance(double guidance) { this.guidance = guidance; }
+
+    public int getMaxNodes() { return maxNodes; }
+    public void setMaxNodes(int maxNodes) { this.maxNodes = Math.max(1, maxNodes); }
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = Math.max(1, threads); }
+
+    public void setSeed(long seed) { this.seed = seed; }
+
+    // true if the last search started from a subtree of the previous one
+    public boolean lastSearchReusedTree() { return lastReused; }
+
+    @Override
+    public SearchStats getLastStats() {
+        return stats;
+    }
+
+    @Override
+    public Move getBestMove(Board board, Player cpu, Player human) {
+        this.cpuCode = cpu.code();
+        this.humanCode = human.code();
+        this.stats = new SearchStats();
+        if (timeLimitMillis <= 0 && maxIterations <= 0) {
+            throw new IllegalStateException("MCTS needs a time limit or an iteration limit");
+        }
+
+        lastReused = reuseTree(board);
+        if (!lastReused) {
+            root = new Node(null, MoveList.NONE, humanCode);
+            rootBoard = board.clone();
+            nodeCount.set(1);
+        }
+        treeCpuCode = cpuCode;
+
+        Board scratch = rootBoard.clone();
+        MoveList moves = new MoveList();
+        expand(root, scratch, cpuCode, moves);
+        if (root.children.length == 0) {
+            root = null;
+            return null;
+        }
+        if (root.children.length == 1) {
+            lastChosen = root.children[0];
+            return MoveList.toMove(lastChosen.move);
+        }
+
+        deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        iterations.set(0);
+        runWorkers();
+
+        Node best = null;
+        for (Node c : root.children) {
+            if (best == null || c.visits > best.visits) best = c;
+        }
+        lastChosen = best;
+        stats.nodes = nodeCount.get();
+        stats.depth = stats.maxPly;
+        return MoveList.toMove(best.move);
+    }
+
+    // ------------------------ Workers ------------------------
+
+    private void runWorkers() {
+        long base = seed + (searches++) * 0xBF58476D1CE4E5B9L;
+        if (threads == 1) {
+            new Worker(base).run();
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Worker w = new Worker(base + t * 0x9E3779B97F4A7C15L);
+            tasks.add(() -> {
+                w.run();
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : POOL.invokeAll(tasks)) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("MCTS worker failed", e.getCause());
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final Board board = new Board();
+        private final MoveList moves = new MoveList();
+        private final SplittableRandom rnd;
+        private int maxDepth;
+
+        Worker(long seed) {
+            this.rnd = new SplittableRandom(seed);
+        }
+
+        @Override
+        public void run() {
+            long done = 0;
+            while (true) {
+                if ((done & 15) == 0 && System.nanoTime() > deadline) break;
+                if (maxIterations > 0 && iterations.getAndIncrement() >= maxIterations) break;
+                iterate();
+                done++;
+            }
+            synchronized (MctsStrategy.this) {
+                stats.leafEvals += done;
+                stats.reachedPly(maxDepth);
+            }
+        }
+
+        private void iterate() {
+            board.copyFrom(rootBoard);
+            Node node = root;
+            int toMove = cpuCode;
+            int depth = 0;
+            addVirtualLoss(node);
+
+            // selection / expansion
+            while (true) {
+                Node[] kids;
+                synchronized (node) {
+                    if (node.children == null) {
+                        if (node.playouts == 0 || nodeCount.get() >= maxNodes) break;
+                        expand(node, board, toMove, moves);
+                    }
+                    kids = node.children;
+                }
+                if (kids.length == 0) break;
+                Node next = select(node, kids);
+                addVirtualLoss(next);
+                board.makeMove(next.move, toMove);
+                toMove = toMove == cpuCode ? humanCode : cpuCode;
+                node = next;
+                depth++;
+            }
+            if (depth > maxDepth) maxDepth = depth;
+
+            double cpuReward = node.winner != Rules.ONGOING
+                    ? (node.winner == cpuCode ? 1.0 : 0.0)
+                    : playout(toMove);
+
+            // backpropagation, taking the virtual loss back
+            for (Node n = node; n != null; n = n.parent) {
+                synchronized (n) {
+                    n.visits += 1 - virtualLoss;
+                    n.playouts++;
+                    n.wins += n.mover == cpuCode ? cpuReward : 1.0 - cpuReward;
+                }
+            }
+        }
+
+        private double playout(int toMove) {
+            for (int ply = 0; ply < maxPlayoutPlies; ply++) {
+                int winner = Rules.completeMoves(board, toMove, moves);
+                if (winner != Rules.ONGOING) return winner == cpuCode ? 1.0 : 0.0;
+                board.makeMove(pick(), toMove);
+                toMove = toMove == cpuCode ? humanCode : cpuCode;
+            }
+            return materialScore(board);
+        }
+
+        // random move; a random capture instead with probability 'guidance'
+        private int pick() {
+            int n = moves.size();
+            if (guidance > 0 && rnd.nextDouble() < guidance) {
+                int captures = 0;
+                for (int i = 0; i < n; i++) if (MoveList.removed(moves.get(i)) != -1) captures++;
+                if (captures > 0) {
+                    int k = rnd.nextInt(captures);
+                    for (int i = 0; i < n; i++) {
+                        int m = moves.get(i);
+                        if (MoveList.removed(m) != -1 && k-- == 0) return m;
+                    }
+                }
+            }
+            return moves.get(rnd.nextInt(n));
+        }
+    }
+
+    private void addVirtualLoss(Node n) {
+        synchronized (n) {
+            n.visits += virtualLoss;
+        }
+    }
+
+    // UCT over the children; unvisited children first
+    private Node select(Node parent, Node[] kids) {
+        double logN = Math.log(Math.max(1, parent.visits));
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node c : kids) {
+            int v = c.visits;
+            double value = v == 0
+                    ? Double.MAX_VALUE
+                    : c.wins / v + exploration * Math.sqrt(logN / v);
+            if (value > bestValue) {
+                bestValue = value;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    // creates the children of 'node' for the position on 'board'; caller holds the node's lock
+    // (or owns the node), 'board' is left unchanged
+    private void expand(Node node, Board board, int toMove, MoveList moves) {
+        if (node.children != null) return;
+        int winner = Rules.completeMoves(board, toMove, moves);
+        Node[] kids = new Node[moves.size()];
+        for (int i = 0; i < kids.length; i++) kids[i] = new Node(node, moves.get(i), toMove);
+        node.winner = winner;
+        nodeCount.addAndGet(kids.length);
+        node.children = kids;
+    }
+
+    // 0..1 from the cpu's point of view, from pieces on the board plus pieces in hand
+    private double materialScore(Board b) {
+        int cpu = b.countPieces(cpuCode) + b.getPiecesInHand(cpuCode);
+        int human = b.countPieces(humanCode) + b.getPiecesInHand(humanCode);
+        double s = 0.5 + 0.08 * (cpu - human);
+        return Math.max(0.05, Math.min(0.95, s));
+    }
+
+    // ------------------------ Tree reuse ------------------------
+
+    // moves the root to the grandchild matching 'board' (our last move + the reply), if it was expanded
+    private boolean reuseTree(Board board) {
+        if (root == null || lastChosen == null || treeCpuCode != cpuCode || lastChosen.children == null) {
+            return false;
+        }
+        long key = board.positionKey();
+        Board probe = rootBoard.clone();
+        probe.makeMove(lastChosen.move, cpuCode);
+        for (Node reply : lastChosen.children) {
+            probe.makeMove(reply.move, humanCode);
+            boolean match = probe.positionKey() == key;
+            if (match) {
+                reply.parent = null;
+                root = reply;
+                rootBoard = board.clone();
+                lastChosen = null;
+                nodeCount.set(countNodes(reply));
+                return true;
+            }
+            probe.unmakeMove(reply.move, humanCode);
+        }
+        return false;
+    }
+
+    private static int countNodes(Node n) {
+        int count = 1;
+        Node[] kids = n.children;
+        if (kids != null) for (Node c : kids) count += countNodes(c);
+        return count;
+    }
+}
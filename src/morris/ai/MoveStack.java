@@ -0,0 +1,44 @@
+package morris.ai;
+
+import morris.model.MoveList;
+
+/**
+ * Per-ply MoveLists reused across a search: one list for the moves at a ply and
+ * one for the capture variants of the move currently being expanded.
+ */
+public class MoveStack {
+
+    private MoveList[] moves = new MoveList[0];
+    private MoveList[] removals = new MoveList[0];
+
+    // cleared move list for this ply
+    public MoveList moves(int ply) {
+        ensure(ply);
+        MoveList list = moves[ply];
+        list.clear();
+        return list;
+    }
+
+    // cleared capture list for this ply
+    public MoveList removals(int ply) {
+        ensure(ply);
+        MoveList list = removals[ply];
+        list.clear();
+        return list;
+    }
+
+    private void ensure(int ply) {
+        if (ply < moves.length) return;
+        int n = Math.max(ply + 1, moves.length * 2);
+        MoveList[] nm = new MoveList[n];
+        MoveList[] nr = new MoveList[n];
+        System.arraycopy(moves, 0, nm, 0, moves.length);
+        System.arraycopy(removals, 0, nr, 0, removals.length);
+        for (int i = moves.length; i < n; i++) {
+            nm[i] = new MoveList();
+            nr[i] = new MoveList(16);
+        }
+        moves = nm;
+        removals = nr;
+    }
+}
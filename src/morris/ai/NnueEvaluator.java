@@ -0,0 +1,110 @@
+package morris.ai;
+
+import morris.model.Board;
+import morris.model.MoveList;
+import morris.model.Rules;
+import morris.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Evaluator backed by an NnueNetwork, with one first-layer accumulator per ply.
+ *
+ * make copies the accumulator of the current ply and applies the move's few
+ * input changes to it; unmake just drops back a ply. Each ply remembers which
+ * position its accumulator belongs to, and evaluate refreshes it from scratch
+ * when the board does not match, so callers that skip make/unmake still get
+ * correct (only slower) scores. Terminal positions score +-WIN_SCORE like the
+ * RULES mode of LinearEvaluator.
+ */
+public final class NnueEvaluator implements IncrementalEvaluator {
+
+    private final NnueNetwork net;
+    private short[][] acc = new short[0][];
+    // position of each ply: human mask, cpu mask, placed total
+    private int[] humanMasks = new int[0];
+    private int[] cpuMasks = new int[0];
+    private int[] placed = new int[0];
+    private int ply;
+    // active inputs of a refreshed position
+    private final int[] inputs = new int[NnueNetwork.MAX_ACTIVE];
+
+    public NnueEvaluator(NnueNetwork net) {
+        this.net = net;
+        ensure(32);
+    }
+
+    @Override
+    public void reset(Board root) {
+        ply = 0;
+        refresh(root);
+    }
+
+    @Override
+    public void make(Board before, int move, int moverCode) {
+        ensure(ply + 2);
+        short[] top = acc[ply];
+        short[] next = acc[ply + 1];
+        System.arraycopy(top, 0, next, 0, top.length);
+        if (matches(before)) {
+            net.addMoveDelta(before, move, moverCode, next);
+            int from = MoveList.from(move);
+            int removed = MoveList.removed(move);
+            int mover = (from == -1 ? 0 : 1 << from) | 1 << MoveList.to(move);
+            int taken = removed == -1 ? 0 : 1 << removed;
+            boolean human = moverCode == Constants.HUMAN;
+            humanMasks[ply + 1] = human ? humanMasks[ply] ^ mover : humanMasks[ply] & ~taken;
+            cpuMasks[ply + 1] = human ? cpuMasks[ply] & ~taken : cpuMasks[ply] ^ mover;
+            placed[ply + 1] = placed[ply] + (from != -1 ? 0 : human ? 16 : 1);
+            ply++;
+        } else {
+            // out of step: the next evaluate at this ply refreshes
+            ply++;
+            humanMasks[ply] = -1;
+        }
+    }
+
+    @Override
+    public void unmake() {
+        if (ply > 0) ply--;
+    }
+
+    @Override
+    public int evaluate(Board board, int maxCode) {
+        int minCode = Rules.opponentOf(maxCode);
+        if (Rules.isGameOver(board, maxCode)) return -LinearEvaluator.WIN_SCORE;
+        if (Rules.isGameOver(board, minCode)) return LinearEvaluator.WIN_SCORE;
+        if (!matches(board)) refresh(board);
+        int cpuScore = net.output(acc[ply]);
+        return maxCode == Constants.CPU ? cpuScore : -cpuScore;
+    }
+
+    private void refresh(Board board) {
+        net.refresh(board, acc[ply], inputs);
+        remember(board);
+    }
+
+    private boolean matches(Board board) {
+        return humanMasks[ply] == board.occupancyMask(Constants.HUMAN)
+                && cpuMasks[ply] == board.occupancyMask(Constants.CPU)
+                && placed[ply] == board.getPlacedCount(Constants.HUMAN) * 16 + board.getPlacedCount(Constants.CPU);
+    }
+
+    private void remember(Board board) {
+        humanMasks[ply] = board.occupancyMask(Constants.HUMAN);
+        cpuMasks[ply] = board.occupancyMask(Constants.CPU);
+        placed[ply] = board.getPlacedCount(Constants.HUMAN) * 16 + board.getPlacedCount(Constants.CPU);
+    }
+
+    private void ensure(int plies) {
+        if (plies <= acc.length) return;
+        int n = Math.max(plies, acc.length * 2);
+        int old = acc.length;
+        acc = Arrays.copyOf(acc, n);
+        for (int i = old; i < n; i++) acc[i] = new short[net.hidden()];
+        humanMasks = Arrays.copyOf(humanMasks, n);
+        cpuMasks = Arrays.copyOf(cpuMasks, n);
+        placed = Arrays.copyOf(placed, n);
+        Arrays.fill(humanMasks, old, n, -1);
+    }
+}
@@ -0,0 +1,210 @@
+package morris.ai;
+
+import morris.model.Board;
+import morris.model.MoveList;
+import morris.model.Rules;
+import morris.util.Constants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Quantized weights of a small NNUE-style network:
+ *   INPUTS one-hot features -> HIDDEN int16 accumulator -> clipped ReLU -> 1 output
+ *
+ * Inputs (absolute, not side-relative):
+ *   0..23   human piece on point p
+ *   24..47  cpu piece on point p
+ *   48..57  human pieces in hand (0..9)
+ *   58..67  cpu pieces in hand (0..9)
+ *   68      movement phase
+ *
+ * The accumulator is bias1 + the sum of the first-layer columns of all active
+ * inputs, so a move only adds and subtracts a few columns (see addMoveDelta).
+ * Activations are clamp(acc, 0, QA); the output is
+ *   (sum(act * w2) + bias2) * evalScale / (QA * QB)
+ * in evaluation units from the cpu side's point of view, where evalScale is the
+ * inverse of the training sigmoid scale.
+ *
+ * File format (big endian): magic "MMNN", version, inputs, hidden, evalScale,
+ * then int16 w1[inputs][hidden], int16 b1[hidden], int16 w2[hidden], int32 b2.
+ */
+public final class NnueNetwork {
+
+    public static final String PROPERTY = "morris.nnue";
+
+    public static final int INPUTS = 69;
+    public static final int QA = 127;
+    public static final int QB = 64;
+    // 18 pieces, two in-hand inputs and the phase flag
+    public static final int MAX_ACTIVE = 21;
+
+    static final int HUMAN_PIECE = 0;
+    static final int CPU_PIECE = 24;
+    static final int HUMAN_HAND = 48;
+    static final int CPU_HAND = 58;
+    static final int MOVEMENT = 68;
+
+    private static final int MAGIC = 0x4D4D4E4E; // "MMNN"
+    private static final int VERSION = 1;
+
+    private static volatile NnueNetwork global;
+    private static volatile boolean globalLoaded;
+
+    final int hidden;
+    final int evalScale;
+    final short[] w1;   // [input * hidden + j]
+    final short[] b1;
+    final short[] w2;
+    final int b2;
+
+    public NnueNetwork(int hidden, int evalScale, short[] w1, short[] b1, short[] w2, int b2) {
+        if (w1.length != INPUTS * hidden || b1.length != hidden || w2.length != hidden) {
+            throw new IllegalArgumentException("Weight arrays do not match " + INPUTS + "x" + hidden);
+        }
+        this.hidden = hidden;
+        this.evalScale = evalScale;
+        this.w1 = w1;
+        this.b1 = b1;
+        this.w2 = w2;
+        this.b2 = b2;
+    }
+
+    public int hidden() { return hidden; }
+
+    // the -Dmorris.nnue network, or null if the property is unset or the file is unreadable
+    public static NnueNetwork global() {
+        if (globalLoaded) return global;
+        synchronized (NnueNetwork.class) {
+            if (!globalLoaded) {
+                String file = System.getProperty(PROPERTY);
+                if (file != null) {
+                    try {
+                        global = load(Paths.get(file));
+                    } catch (IOException | IllegalArgumentException e) {
+                        System.err.println("NNUE network not loaded: " + e.getMessage());
+                    }
+                }
+                globalLoaded = true;
+            }
+            return global;
+        }
+    }
+
+    // ========================= ACCUMULATOR =========================
+
+    static int pieceInput(int playerCode, int point) {
+        return (playerCode == Constants.HUMAN ? HUMAN_PIECE : CPU_PIECE) + point;
+    }
+
+    static int handInput(int playerCode, int inHand) {
+        return (playerCode == Constants.HUMAN ? HUMAN_HAND : CPU_HAND) + inHand;
+    }
+
+    // writes the active inputs of board to out (at least MAX_ACTIVE long) and returns their count
+    public static int activeInputs(Board board, int[] out) {
+        int n = 0;
+        for (int m = board.occupancyMask(Constants.HUMAN); m != 0; m &= m - 1) {
+            out[n++] = HUMAN_PIECE + Integer.numberOfTrailingZeros(m);
+        }
+        for (int m = board.occupancyMask(Constants.CPU); m != 0; m &= m - 1) {
+            out[n++] = CPU_PIECE + Integer.numberOfTrailingZeros(m);
+        }
+        out[n++] = handInput(Constants.HUMAN, board.getPiecesInHand(Constants.HUMAN));
+        out[n++] = handInput(Constants.CPU, board.getPiecesInHand(Constants.CPU));
+        if (!board.isPlacementPhase()) out[n++] = MOVEMENT;
+        return n;
+    }
+
+    // acc = bias + columns of every active input of board; 'inputs' is caller-owned scratch
+    // of MAX_ACTIVE ints, so one network can be shared by evaluators on several threads
+    public void refresh(Board board, short[] acc, int[] inputs) {
+        System.arraycopy(b1, 0, acc, 0, hidden);
+        int n = activeInputs(board, inputs);
+        for (int i = 0; i < n; i++) add(acc, inputs[i]);
+    }
+
+    /**
+     * Turns the accumulator of 'before' into that of the position after moverCode
+     * plays 'move' on it; 'before' must not have been changed yet.
+     */
+    public void addMoveDelta(Board before, int move, int moverCode, short[] acc) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        int removed = MoveList.removed(move);
+        if (from != -1) sub(acc, pieceInput(moverCode, from));
+        add(acc, pieceInput(moverCode, to));
+        if (removed != -1) sub(acc, pieceInput(Rules.opponentOf(moverCode), removed));
+        if (from == -1) {
+            int inHand = before.getPiecesInHand(moverCode);
+            sub(acc, handInput(moverCode, inHand));
+            add(acc, handInput(moverCode, inHand - 1));
+            int placed = before.getPlacedCount(Constants.HUMAN) + before.getPlacedCount(Constants.CPU);
+            if (placed + 1 == 2 * Board.PIECES_PER_PLAYER) add(acc, MOVEMENT);
+        }
+    }
+
+    private void add(short[] acc, int input) {
+        int base = input * hidden;
+        for (int j = 0; j < hidden; j++) acc[j] += w1[base + j];
+    }
+
+    private void sub(short[] acc, int input) {
+        int base = input * hidden;
+        for (int j = 0; j < hidden; j++) acc[j] -= w1[base + j];
+    }
+
+    // evaluation from the cpu side's point of view
+    public int output(short[] acc) {
+        long sum = b2;
+        for (int j = 0; j < hidden; j++) {
+            int a = acc[j];
+            if (a < 0) a = 0;
+            else if (a > QA) a = QA;
+            sum += a * w2[j];
+        }
+        return (int) (sum * evalScale / (QA * QB));
+    }
+
+    // ========================= FILES =========================
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(INPUTS);
+            out.writeInt(hidden);
+            out.writeInt(evalScale);
+            for (short w : w1) out.writeShort(w);
+            for (short b : b1) out.writeShort(b);
+            for (short w : w2) out.writeShort(w);
+            out.writeInt(b2);
+        }
+    }
+
+    public static NnueNetwork load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an NNUE network: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported network version " + version + ": " + file);
+            int inputs = in.readInt();
+            if (inputs != INPUTS) throw new IOException("Network has " + inputs + " inputs, expected " + INPUTS);
+            int hidden = in.readInt();
+            int evalScale = in.readInt();
+            short[] w1 = new short[INPUTS * hidden];
+            short[] b1 = new short[hidden];
+            short[] w2 = new short[hidden];
+            for (int i = 0; i < w1.length; i++) w1[i] = in.readShort();
+            for (int i = 0; i < hidden; i++) b1[i] = in.readShort();
+            for (int i = 0; i < hidden; i++) w2[i] = in.readShort();
+            int b2 = in.readInt();
+            return new NnueNetwork(hidden, evalScale, w1, b1, w2, b2);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package morris.ai;
+
+/**
+ * Triangular principal-variation table: line(ply) is the best continuation
+ * found from the node at 'ply', as packed MoveList moves. A node clears its row
+ * on entry and, when a child improves its score, copies the child's row
+ * behind the child's move.
+ */
+public class PvTable {
+
+    private int[][] lines = new int[0][];
+    private int[] lengths = new int[0];
+
+    public void clear(int ply) {
+        ensure(ply);
+        lengths[ply] = 0;
+    }
+
+    // line(ply) = move followed by line(ply + 1)
+    public void update(int ply, int move) {
+        ensure(ply + 1);
+        int[] row = lines[ply];
+        int tail = lengths[ply + 1];
+        if (row.length < tail + 1) row = lines[ply] = new int[tail + 8];
+        row[0] = move;
+        System.arraycopy(lines[ply + 1], 0, row, 1, tail);
+        lengths[ply] = tail + 1;
+    }
+
+    public int length(int ply) {
+        return ply < lengths.length ? lengths[ply] : 0;
+    }
+
+    public int move(int ply, int i) {
+        return lines[ply][i];
+    }
+
+    private void ensure(int ply) {
+        if (ply < lengths.length) return;
+        int n = Math.max(ply + 1, lengths.length * 2);
+        int[][] nl = new int[n][];
+        int[] nlen = new int[n];
+        System.arraycopy(lines, 0, nl, 0, lines.length);
+        System.arraycopy(lengths, 0, nlen, 0, lengths.length);
+        for (int i = lines.length; i < n; i++) nl[i] = new int[8];
+        lines = nl;
+        lengths = nlen;
+    }
+}
@@ -0,0 +1,21 @@
+package morris.ai;
+
+import morris.model.Move;
+
+/**
+ * A chosen move together with the statistics of the search that produced it.
+ */
+public class SearchResult {
+    public final Move move;
+    public final SearchStats stats;
+
+    public SearchResult(Move move, SearchStats stats) {
+        this.move = move;
+        this.stats = stats;
+    }
+
+    @Override
+    public String toString() {
+        return move + " [" + stats + "]";
+    }
+}
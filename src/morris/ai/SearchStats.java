@@ -0,0 +1,99 @@
+package morris.ai;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counters for one getBestMove call. Strategies in this package bump the fields
+ * directly from their search loops; everything else reads them through the getters.
+ */
+public class SearchStats {
+
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    long nodes;
+    long leafEvals;
+    long betaCutoffs;
+    long firstMoveCutoffs; // cutoffs caused by the first move tried at a node
+    int depth;             // nominal (or last completed) search depth
+    int maxPly;            // deepest ply actually visited
+    long cacheProbes;
+    long cacheHits;
+    long ttProbes;
+    long ttHits;
+    long elapsedNanos;
+    long allocatedBytes = -1; // -1 when the JVM can't measure it
+    int score = NO_SCORE;     // searched value of the chosen move for the searching side, if reported
+
+    public long getNodes() { return nodes; }
+    public long getLeafEvals() { return leafEvals; }
+    public long getBetaCutoffs() { return betaCutoffs; }
+    public long getFirstMoveCutoffs() { return firstMoveCutoffs; }
+    public int getDepth() { return depth; }
+    public int getMaxPly() { return maxPly; }
+    public long getCacheProbes() { return cacheProbes; }
+    public long getCacheHits() { return cacheHits; }
+    public long getTtProbes() { return ttProbes; }
+    public long getTtHits() { return ttHits; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public long getAllocatedBytes() { return allocatedBytes; }
+    public int getScore() { return score; }
+    public boolean hasScore() { return score != NO_SCORE; }
+
+    void reachedPly(int ply) {
+        if (ply > maxPly) maxPly = ply;
+    }
+
+    void cutoff(boolean firstMove) {
+        betaCutoffs++;
+        if (firstMove) firstMoveCutoffs++;
+    }
+
+    // share of cutoffs produced by the first move: a direct measure of move ordering quality
+    public double firstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    public double cacheHitRate() {
+        return cacheProbes == 0 ? 0.0 : (double) cacheHits / cacheProbes;
+    }
+
+    public double ttHitRate() {
+        return ttProbes == 0 ? 0.0 : (double) ttHits / ttProbes;
+    }
+
+    public double nodesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "nodes=%d (%.0f/s), evals=%d, cutoffs=%d (first %.0f%%), depth=%d/%d, cache=%.0f%%, tt=%.0f%%, %.2f ms, alloc=%s",
+                nodes, nodesPerSecond(), leafEvals, betaCutoffs, firstMoveCutoffRate() * 100,
+                depth, maxPly, cacheHitRate() * 100, ttHitRate() * 100, elapsedNanos / 1e6,
+                allocatedBytes < 0 ? "n/a" : (allocatedBytes / 1024) + "KB");
+    }
+
+    // ------------------------ Allocation measurement ------------------------
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = allocationBean();
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+                if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) return sun;
+            }
+        } catch (LinkageError | RuntimeException ignored) {
+            // jdk.management not available
+        }
+        return null;
+    }
+
+    // bytes allocated so far by the calling thread, or -1 if unsupported
+    public static long currentThreadAllocatedBytes() {
+        return THREAD_BEAN == null ? -1 : THREAD_BEAN.getCurrentThreadAllocatedBytes();
+    }
+}
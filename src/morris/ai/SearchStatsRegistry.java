@@ -0,0 +1,110 @@
+package morris.ai;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide totals of SearchStats per strategy name. Recording is lock-free
+ * (LongAdder per counter) so it can be called after every move from any thread.
+ */
+public final class SearchStatsRegistry {
+
+    private static final SearchStatsRegistry GLOBAL = new SearchStatsRegistry();
+
+    private final Map<String, Totals> totals = new ConcurrentHashMap<>();
+
+    public static SearchStatsRegistry global() {
+        return GLOBAL;
+    }
+
+    public void record(String strategy, SearchStats s) {
+        totals.computeIfAbsent(strategy, k -> new Totals()).add(s);
+    }
+
+    public void reset() {
+        totals.clear();
+    }
+
+    // copy of the current totals, sorted by strategy name
+    public Map<String, Totals> snapshot() {
+        return new TreeMap<>(totals);
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Totals> e : snapshot().entrySet()) {
+            sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** Running sums for one strategy. */
+    public static final class Totals {
+        private final LongAdder searches = new LongAdder();
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder leafEvals = new LongAdder();
+        private final LongAdder betaCutoffs = new LongAdder();
+        private final LongAdder firstMoveCutoffs = new LongAdder();
+        private final LongAdder cacheProbes = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder ttProbes = new LongAdder();
+        private final LongAdder ttHits = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxPly = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxElapsedNanos = new LongAccumulator(Math::max, 0);
+
+        private void add(SearchStats s) {
+            searches.increment();
+            nodes.add(s.nodes);
+            leafEvals.add(s.leafEvals);
+            betaCutoffs.add(s.betaCutoffs);
+            firstMoveCutoffs.add(s.firstMoveCutoffs);
+            cacheProbes.add(s.cacheProbes);
+            cacheHits.add(s.cacheHits);
+            ttProbes.add(s.ttProbes);
+            ttHits.add(s.ttHits);
+            elapsedNanos.add(s.elapsedNanos);
+            if (s.allocatedBytes > 0) allocatedBytes.add(s.allocatedBytes);
+            maxPly.accumulate(s.maxPly);
+            maxElapsedNanos.accumulate(s.elapsedNanos);
+        }
+
+        public long searches() { return searches.sum(); }
+        public long nodes() { return nodes.sum(); }
+        public long leafEvals() { return leafEvals.sum(); }
+        public long betaCutoffs() { return betaCutoffs.sum(); }
+        public long firstMoveCutoffs() { return firstMoveCutoffs.sum(); }
+        public long cacheProbes() { return cacheProbes.sum(); }
+        public long cacheHits() { return cacheHits.sum(); }
+        public long ttProbes() { return ttProbes.sum(); }
+        public long ttHits() { return ttHits.sum(); }
+        public long elapsedNanos() { return elapsedNanos.sum(); }
+        public long allocatedBytes() { return allocatedBytes.sum(); }
+        public long maxPly() { return maxPly.get(); }
+        public long maxElapsedNanos() { return maxElapsedNanos.get(); }
+
+        public double nodesPerSecond() {
+            long ns = elapsedNanos();
+            return ns == 0 ? 0.0 : nodes() * 1e9 / ns;
+        }
+
+        @Override
+        public String toString() {
+            long n = Math.max(1, searches());
+            long cut = betaCutoffs();
+            long cp = cacheProbes();
+            long tp = ttProbes();
+            return String.format(
+                    "searches=%d, nodes=%d (%.0f/s), evals=%d, first-move cutoffs=%.0f%%, maxPly=%d, cache=%.0f%%, tt=%.0f%%, avg %.2f ms, max %.2f ms, avg alloc %dKB",
+                    searches(), nodes(), nodesPerSecond(), leafEvals(),
+                    cut == 0 ? 0.0 : 100.0 * firstMoveCutoffs() / cut, maxPly(),
+                    cp == 0 ? 0.0 : 100.0 * cacheHits() / cp,
+                    tp == 0 ? 0.0 : 100.0 * ttHits() / tp,
+                    elapsedNanos() / 1e6 / n, maxElapsedNanos() / 1e6, allocatedBytes() / 1024 / n);
+        }
+    }
+}
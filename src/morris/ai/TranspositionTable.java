@@ -0,0 +1,127 @@
+package morris.ai;
+
+import java.util.Arrays;
+import morris.metrics.CacheProbeEvent;
+
+/**
+ * Search results keyed by position + side to move, with the depth they were
+ * searched to and whether the value is exact or only a bound.
+ *
+ * Two slots per bucket: slot 0 keeps the deepest entry, slot 1 always takes the
+ * newest one. Keys are packed position keys (see PositionCodec) with
+ * SIDE_TO_MOVE_BIT set when the cpu is to move.
+ *
+ * Not thread-safe: one instance per strategy.
+ */
+public class TranspositionTable {
+
+    public static final long SIDE_TO_MOVE_BIT = 1L << 58;
+
+    public static final byte EXACT = 0;
+    public static final byte LOWER_BOUND = 1; // value >= stored (fail high)
+    public static final byte UPPER_BOUND = 2; // value <= stored (fail low)
+
+    public static final int NO_MOVE = -1;
+
+    private static final long EMPTY_KEY = -1L;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int[] moves;
+    private final byte[] depths;
+    private final byte[] flags;
+    private final int bucketMask;
+
+    // probe result, valid after probe() returned true
+    private int foundValue;
+    private int foundMove;
+    private int foundDepth;
+    private byte foundFlag;
+
+    private long probes;
+    private long hits;
+
+    public TranspositionTable(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(2, capacity / 2));
+        keys = new long[buckets * 2];
+        values = new int[buckets * 2];
+        moves = new int[buckets * 2];
+        depths = new byte[buckets * 2];
+        flags = new byte[buckets * 2];
+        bucketMask = buckets - 1;
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+
+    public static long key(long positionKey, boolean cpuToMove) {
+        return cpuToMove ? positionKey | SIDE_TO_MOVE_BIT : positionKey;
+    }
+
+    public boolean probe(long key) {
+        probes++;
+        int base = bucket(key);
+        for (int s = base; s < base + 2; s++) {
+            if (keys[s] == key) {
+                foundValue = values[s];
+                foundMove = moves[s];
+                foundDepth = depths[s];
+                foundFlag = flags[s];
+                hits++;
+                CacheProbeEvent.emit("tt", key, true);
+                return true;
+            }
+        }
+        CacheProbeEvent.emit("tt", key, false);
+        return false;
+    }
+
+    public int value() { return foundValue; }
+    public int move() { return foundMove; }
+    public int depth() { return foundDepth; }
+    public byte flag() { return foundFlag; }
+
+    public void store(long key, int depth, int value, byte flag, int move) {
+        int base = bucket(key);
+        int slot;
+        if (keys[base] == key || keys[base] == EMPTY_KEY || depth >= depths[base]) {
+            // deeper (or equal) result: move the old deep entry to the always-replace slot
+            if (keys[base] != key && keys[base] != EMPTY_KEY) copy(base, base + 1);
+            slot = base;
+        } else {
+            slot = base + 1;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        moves[slot] = move;
+        depths[slot] = (byte) Math.min(depth, Byte.MAX_VALUE);
+        flags[slot] = flag;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+    }
+
+    public long probes() { return probes; }
+    public long hits() { return hits; }
+
+    public double hitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    private void copy(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        moves[to] = moves[from];
+        depths[to] = depths[from];
+        flags[to] = flags[from];
+    }
+
+    private int bucket(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return ((int) (h >>> 32) & bucketMask) << 1;
+    }
+}
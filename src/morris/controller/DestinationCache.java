@@ -0,0 +1,46 @@
+package morris.controller;
+
+import morris.model.Board;
+import morris.util.Constants;
+
+/**
+ * Legal destinations of every piece of one player, as 24-bit masks, for the
+ * last position asked about. Selecting, cancelling and reselecting pieces all
+ * happen in the same position, so after the first query each lookup is an
+ * array read; the masks are rebuilt only when the position key changes.
+ */
+public class DestinationCache {
+
+    private final int[] masks = new int[24];
+    private long cachedKey = -1;
+    private int cachedPlayer = -1;
+
+    // empty points the piece on `from` may move to; 0 if it is not the player's piece
+    public int destinations(Board board, int playerCode, int from) {
+        long key = board.positionKey();
+        if (key != cachedKey || playerCode != cachedPlayer) {
+            fill(board, playerCode);
+            cachedKey = key;
+            cachedPlayer = playerCode;
+        }
+        return masks[from];
+    }
+
+    public void invalidate() {
+        cachedKey = -1;
+    }
+
+    private void fill(Board board, int playerCode) {
+        int own = board.occupancyMask(playerCode);
+        int empty = ~(own | board.occupancyMask(opponentOf(playerCode))) & Constants.ALL_POINTS;
+        boolean flying = Integer.bitCount(own) == 3;
+        for (int i = 0; i < 24; i++) {
+            if ((own >>> i & 1) == 0) masks[i] = 0;
+            else masks[i] = flying ? empty : Constants.ADJ_MASKS[i] & empty;
+        }
+    }
+
+    private static int opponentOf(int playerCode) {
+        return playerCode == Constants.HUMAN ? Constants.CPU : Constants.HUMAN;
+    }
+}
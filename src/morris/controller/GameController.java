@@ -28,60 +28,102 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.util.Duration;
 
+import morris.ai.AnalysisLine;
 import morris.ai.CpuStrategy;
 import morris.ai.BacktrackingStrategy;
-import morris.ai.DivideAndConquerStrategy;
-import morris.ai.DpStrategy;
-import morris.ai.GreedyStrategy;
+import morris.ai.Difficulty;
+import morris.metrics.RedrawEvent;
 import morris.model.Board;
 import morris.model.Move;
 import morris.model.Player;
 import morris.util.Constants;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class GameController {
 
-    // --- UI root + canvas ---
+    // --- UI root + canvas layers ---
+    // boardLayer: table, board and lines, painted once (node positions are fixed)
+    // canvas:     points, pieces and highlights, repainted when the game state changes
+    // overlay:    the piece being animated; only its dirty rectangle is repainted per frame
     private final BorderPane root;
+    private final Canvas boardLayer;
     private final Canvas canvas;
+    private final Canvas overlay;
     private final GraphicsContext g;
+    private final GraphicsContext overlayG;
 
     // --- top + side UI ---
     private final Label status;
     private final Label humanCoinsLabel;
     private final Label cpuCoinsLabel;
-    private final ComboBox<String> algoSelect;
+    private final ComboBox<Difficulty> levelSelect;
     private final Button visualizeBtn;
+    private final Button hintBtn;
     private final TextArea commentaryArea;
 
-    // --- game state ---
+    // --- game state (rules, turns and selection live in the headless session) ---
+    private final GameSession session;
     private final Board board;
-    private Player currentPlayer = Player.HUMAN;
-    private CpuStrategy cpuStrategy;
     private final double[][] nodePos = new double[24][2];
-
-    // --- movement UI state ---
-    private int selectedSource = -1;
-    private List<Integer> validDestinations = new ArrayList<>();
-    private boolean waitingForRemoval = false;
-    private List<Integer> removalCandidates = new ArrayList<>();
+    private final NodeHitGrid hitGrid = new NodeHitGrid();
+    // analyses the human side for hints, independent of the CPU strategy in use
+    private final BacktrackingStrategy hintEngine = new BacktrackingStrategy();
+    private static final int HINT_LINES = 3;
+    private static final double HIT_RADIUS = 18;
 
     // --- animation state ---
-    private boolean animating = false;
     private Timeline moveTimeline;
-    private Integer lastCpuTo = null;
     private Timeline bgTimeline;
-    private boolean gameOver = false;
     private static final double CANVAS_SIZE = 620;
 
+    // --- cached paints (piece gradients are proportional, so one instance serves every point) ---
+    private static final RadialGradient TABLE_FILL = new RadialGradient(
+            0, 0, 0.5, 0.45, 0.85, true, CycleMethod.NO_CYCLE,
+            new Stop(0, Color.rgb(242, 233, 213)),
+            new Stop(0.6, Color.rgb(214, 192, 154)),
+            new Stop(1, Color.rgb(172, 145, 108))
+    );
+    private static final LinearGradient BOARD_FILL = new LinearGradient(
+            0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
+            new Stop(0, Color.rgb(167, 117, 63)),
+            new Stop(0.55, Color.rgb(139, 91, 48)),
+            new Stop(1, Color.rgb(103, 68, 39))
+    );
+    // same look as the old absolute gradient at (x-4, y-6), radius 16, over the 28px piece box
+    private static final RadialGradient HUMAN_FILL = new RadialGradient(
+            0, 0, 10.0 / 28, 8.0 / 28, 16.0 / 28, true, CycleMethod.NO_CYCLE,
+            new Stop(0, Color.rgb(218, 239, 255)),
+            new Stop(1, Color.rgb(24, 99, 187))
+    );
+    private static final RadialGradient CPU_FILL = new RadialGradient(
+            0, 0, 10.0 / 28, 8.0 / 28, 16.0 / 28, true, CycleMethod.NO_CYCLE,
+            new Stop(0, Color.rgb(255, 223, 206)),
+            new Stop(1, Color.rgb(184, 43, 27))
+    );
+    private static final Color HUMAN_RIM = Color.rgb(8, 44, 90);
+    private static final Color CPU_RIM = Color.rgb(96, 17, 10);
+    // half size of the overlay area touched by one moving piece (radius 14 + stroke)
+    private static final double PIECE_EXTENT = 16;
+    private double overlayX = Double.NaN, overlayY = Double.NaN;
+
     public GameController() {
-        board = new Board();
+        session = new GameSession(null, new GameSession.View() {
+            @Override public void status(String text) { status.setText(text); }
+            @Override public void commentary(String line) { addCommentary(line); }
+            @Override public void boardChanged() { drawBoard(); }
+            @Override public void gameOver(String message, boolean humanWon) { showGameOver(message, humanWon); }
+            @Override public void animate(Move m, int playerCode, Runnable done) { animateMove(m, playerCode, done); }
+        });
+        board = session.getBoard();
 
         root = new BorderPane();
+        boardLayer = new Canvas(CANVAS_SIZE, CANVAS_SIZE);
         canvas = new Canvas(CANVAS_SIZE, CANVAS_SIZE);
+        overlay = new Canvas(CANVAS_SIZE, CANVAS_SIZE);
+        overlay.setMouseTransparent(true);
         g = canvas.getGraphicsContext2D();
+        overlayG = overlay.getGraphicsContext2D();
 
         root.setStyle("-fx-background-color: linear-gradient(to bottom right, #f3efe6, #e9decf, #e3d6c3);");
 
@@ -96,25 +138,28 @@ public class GameController {
         humanCoinsLabel.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #1f5b8a;");
         cpuCoinsLabel.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #9a3f2c;");
 
-        algoSelect = new ComboBox<>();
-        algoSelect.getItems().addAll("Greedy", "Divide & Conquer", "DP", "Backtracking");
-        algoSelect.setValue("DP");
-        algoSelect.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 14px; -fx-background-color: #fff9ef; -fx-border-color: #9a7b57; -fx-border-radius: 8; -fx-background-radius: 8;");
+        levelSelect = new ComboBox<>();
+        levelSelect.getItems().addAll(Difficulty.values());
+        levelSelect.setValue(Difficulty.MEDIUM);
+        levelSelect.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 14px; -fx-background-color: #fff9ef; -fx-border-color: #9a7b57; -fx-border-radius: 8; -fx-background-radius: 8;");
 
-        Label algoTitle = new Label("CPU Strategy");
-        algoTitle.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #5a4028;");
+        Label levelTitle = new Label("Difficulty");
+        levelTitle.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #5a4028;");
         visualizeBtn = new Button("Visualize Backtracking");
         visualizeBtn.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 13px; -fx-font-weight: bold; -fx-background-color: #f0e1c6; -fx-text-fill: #4b321d; -fx-border-color: #9a7b57; -fx-border-radius: 8; -fx-background-radius: 8;");
         visualizeBtn.setOnAction(e -> showBacktrackingTrace());
+        hintBtn = new Button("Hint");
+        hintBtn.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 13px; -fx-font-weight: bold; -fx-background-color: #f0e1c6; -fx-text-fill: #4b321d; -fx-border-color: #9a7b57; -fx-border-radius: 8; -fx-background-radius: 8;");
+        hintBtn.setOnAction(e -> showHint());
         commentaryArea = new TextArea();
         commentaryArea.setEditable(false);
         commentaryArea.setWrapText(true);
         commentaryArea.setPrefRowCount(6);
         commentaryArea.setStyle("-fx-font-family: 'Cambria'; -fx-font-size: 13px; -fx-control-inner-background: #fffaf1; -fx-text-fill: #3d2f22; -fx-border-color: #ccb38f; -fx-border-radius: 10; -fx-background-radius: 10;");
 
-        algoSelect.setOnAction(e -> {
+        levelSelect.setOnAction(e -> {
             updateCpuStrategy();
-            addCommentary("CPU strategy set to " + algoSelect.getValue() + ".");
+            addCommentary("CPU difficulty set to " + levelSelect.getValue() + ".");
         });
         updateCpuStrategy();
 
@@ -124,7 +169,7 @@ public class GameController {
         VBox titleBox = new VBox(4, title, status);
         titleBox.setAlignment(Pos.CENTER_LEFT);
 
-        VBox leftBox = new VBox(8, algoTitle, algoSelect, visualizeBtn, humanCoinsLabel, cpuCoinsLabel);
+        VBox leftBox = new VBox(8, levelTitle, levelSelect, visualizeBtn, hintBtn, humanCoinsLabel, cpuCoinsLabel);
         leftBox.setAlignment(Pos.CENTER_LEFT);
         
         HBox topContent = new HBox(24, leftBox, titleBox);
@@ -134,7 +179,7 @@ public class GameController {
         top.setCenter(topContent);
 
         root.setTop(top);
-        StackPane boardContainer = new StackPane(canvas);
+        StackPane boardContainer = new StackPane(boardLayer, canvas, overlay);
         boardContainer.setAlignment(Pos.CENTER);
         boardContainer.setPadding(new Insets(12, 12, 12, 12));
         boardContainer.setStyle("-fx-background-color: rgba(90, 64, 39, 0.20); -fx-background-radius: 16; -fx-border-color: rgba(100, 72, 46, 0.28); -fx-border-radius: 16;");
@@ -149,17 +194,17 @@ public class GameController {
         startBackgroundAnimation();
 
         setupNodePositions();
-        drawBoard();
-        addCommentary("Game started. Placement phase begins.");
+        drawStaticBoard();
+        session.start();
 
         Platform.runLater(this::showStartDialog);
 
         canvas.setOnMouseClicked(e -> {
-            if (animating || gameOver) return; // ignore clicks during animations or after game end
-            if (currentPlayer != Player.HUMAN) return;
+            if (session.isBusy() || session.isGameOver()) return; // ignore clicks during animations or after game end
+            if (session.getCurrentPlayer() != Player.HUMAN) return;
             int clicked = findNearestNode(e.getX(), e.getY());
             if (clicked != -1) {
-                handleHumanClick(clicked);
+                session.click(clicked);
             }
         });
     }
@@ -170,33 +215,15 @@ public class GameController {
 
     // ========================= CPU STRATEGY + EXPLANATION =========================
 
+    // every level is the backtracking engine with a different search budget and noise
     private void updateCpuStrategy() {
-        switch (algoSelect.getValue()) {
-            case "Greedy":
-                cpuStrategy = new GreedyStrategy();
-                break;
-            case "Divide & Conquer":
-                cpuStrategy = new DivideAndConquerStrategy();
-                break;
-            case "DP":
-                cpuStrategy = new DpStrategy();
-                break;
-            case "Backtracking":
-                cpuStrategy = new BacktrackingStrategy();
-                break;
-        }
-        boolean isBacktracking = "Backtracking".equals(algoSelect.getValue());
-        visualizeBtn.setDisable(!isBacktracking);
-        if (isBacktracking) {
-            visualizeBtn.setText("Visualize Backtracking");
-        } else {
-            visualizeBtn.setText("Visualizer (Backtracking only)");
-        }
+        session.setCpuStrategy(levelSelect.getValue().newStrategy());
     }
 
     private void showBacktrackingTrace() {
+        CpuStrategy cpuStrategy = session.getCpuStrategy();
         if (!(cpuStrategy instanceof BacktrackingStrategy)) {
-            addCommentary("Switch strategy to Backtracking to use visualizer.");
+            addCommentary("The visualizer needs the backtracking engine.");
             return;
         }
 
@@ -219,6 +246,31 @@ public class GameController {
         addCommentary("Backtracking visualization generated.");
     }
 
+    // top moves for the human from one multi-PV search, with the expected continuation
+    private void showHint() {
+        if (session.isGameOver() || session.isBusy() || session.getCurrentPlayer() != Player.HUMAN) {
+            addCommentary("Hints are available on your turn.");
+            return;
+        }
+        if (session.isWaitingForRemoval()) {
+            status.setText("Hint: remove one of the highlighted CPU pieces.");
+            return;
+        }
+
+        hintEngine.setGameHistory(session.getHistory());
+        List<AnalysisLine> lines = hintEngine.analyze(board, Player.HUMAN, Player.CPU, HINT_LINES);
+        if (lines.isEmpty()) {
+            addCommentary("Hint: no legal moves.");
+            return;
+        }
+        status.setText("Hint: " + AnalysisLine.describe(lines.get(0).move));
+        for (int i = 0; i < lines.size(); i++) {
+            AnalysisLine line = lines.get(i);
+            addCommentary("Hint " + (i + 1) + ": " + AnalysisLine.describe(line.move)
+                    + " (score " + line.score + "), line: " + line.pvText());
+        }
+    }
+
     // ========================= BOARD LAYOUT =========================
 
     private void setupNodePositions() {
@@ -238,6 +290,7 @@ public class GameController {
             nodePos[i][0] = margin + (base[i][0] - 50) * scale;
             nodePos[i][1] = margin + (base[i][1] - 50) * scale;
         }
+        hitGrid.rebuild(nodePos, HIT_RADIUS, canvas.getWidth(), canvas.getHeight());
     }
 
     // ========================= DRAWING (WOODEN BOARD + PIECES) =========================
@@ -250,6 +303,20 @@ public class GameController {
      * @param hideIndex if non-null, that index is not drawn (for move animation).
      */
     private void drawBoard(Integer hideIndex) {
+        RedrawEvent event = new RedrawEvent();
+        event.begin();
+        paintBoard(hideIndex);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = hideIndex == null ? "pieces" : "pieces-hidden";
+            event.hiddenIndex = hideIndex == null ? -1 : hideIndex;
+            event.commit();
+        }
+    }
+
+    // table, board frame and lines; depends only on nodePos, so repaint it after node positions change
+    private void drawStaticBoard() {
+        GraphicsContext bg = boardLayer.getGraphicsContext2D();
         double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
         double maxX = Double.MIN_VALUE, maxY = Double.MIN_VALUE;
         for (int i = 0; i < 24; i++) {
@@ -266,57 +333,49 @@ public class GameController {
         double outerH = (maxY - minY) + outerPad * 2;
 
         // Table background
-        RadialGradient tableBg = new RadialGradient(
-                0, 0, 0.5, 0.45, 0.85, true, CycleMethod.NO_CYCLE,
-                new Stop(0, Color.rgb(242, 233, 213)),
-                new Stop(0.6, Color.rgb(214, 192, 154)),
-                new Stop(1, Color.rgb(172, 145, 108))
-        );
-        g.setFill(tableBg);
-        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        bg.setFill(TABLE_FILL);
+        bg.fillRect(0, 0, boardLayer.getWidth(), boardLayer.getHeight());
 
         // Board base
-        LinearGradient boardBg = new LinearGradient(
-                0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-                new Stop(0, Color.rgb(167, 117, 63)),
-                new Stop(0.55, Color.rgb(139, 91, 48)),
-                new Stop(1, Color.rgb(103, 68, 39))
-        );
-        g.setFill(boardBg);
-        g.fillRoundRect(outerX, outerY, outerW, outerH, 26, 26);
+        bg.setFill(BOARD_FILL);
+        bg.fillRoundRect(outerX, outerY, outerW, outerH, 26, 26);
 
-        g.setStroke(Color.rgb(42, 96, 74));
-        g.setLineWidth(8);
-        g.strokeRoundRect(outerX, outerY, outerW, outerH, 26, 26);
+        bg.setStroke(Color.rgb(42, 96, 74));
+        bg.setLineWidth(8);
+        bg.strokeRoundRect(outerX, outerY, outerW, outerH, 26, 26);
 
-        g.setStroke(Color.rgb(219, 191, 134));
-        g.setLineWidth(3);
-        g.strokeRoundRect(outerX + innerPad, outerY + innerPad, outerW - innerPad * 2, outerH - innerPad * 2, 20, 20);
+        bg.setStroke(Color.rgb(219, 191, 134));
+        bg.setLineWidth(3);
+        bg.strokeRoundRect(outerX + innerPad, outerY + innerPad, outerW - innerPad * 2, outerH - innerPad * 2, 20, 20);
 
         // Board lines
-        g.setStroke(Color.rgb(236, 209, 160));
-        g.setLineWidth(3.2);
+        bg.setStroke(Color.rgb(236, 209, 160));
+        bg.setLineWidth(3.2);
         for (int i = 0; i < 24; i++) {
             for (int nb : Constants.ADJ.get(i)) {
                 if (nb > i) {
-                    g.strokeLine(nodePos[i][0], nodePos[i][1], nodePos[nb][0], nodePos[nb][1]);
+                    bg.strokeLine(nodePos[i][0], nodePos[i][1], nodePos[nb][0], nodePos[nb][1]);
                 }
             }
         }
+    }
+
+    private void paintBoard(Integer hideIndex) {
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
 
         // Highlight valid moves
         g.setFill(Color.color(0.96, 0.94, 0.74, 0.95));
-        for (int d : validDestinations) {
+        for (int d : session.getValidDestinations()) {
             double x = nodePos[d][0];
             double y = nodePos[d][1];
             g.fillOval(x - 9, y - 9, 18, 18);
         }
 
         // Highlight removable CPU pieces when human formed a mill
-        if (waitingForRemoval) {
+        if (session.isWaitingForRemoval()) {
             g.setStroke(Color.rgb(255, 210, 125));
             g.setLineWidth(4.0);
-            for (int d : removalCandidates) {
+            for (int d : session.getRemovalCandidates()) {
                 double x = nodePos[d][0];
                 double y = nodePos[d][1];
                 g.strokeOval(x - 18, y - 18, 36, 36);
@@ -324,6 +383,7 @@ public class GameController {
         }
 
         // Highlight selected source
+        int selectedSource = session.getSelectedSource();
         if (selectedSource != -1) {
             g.setStroke(Color.rgb(247, 204, 96));
             g.setLineWidth(4.5);
@@ -348,28 +408,12 @@ public class GameController {
 
             // Piece
             if (v == 1) { // HUMAN
-                g.setFill(new RadialGradient(
-                        0, 0, x - 4, y - 6, 16, false, CycleMethod.NO_CYCLE,
-                        new Stop(0, Color.rgb(218, 239, 255)),
-                        new Stop(1, Color.rgb(24, 99, 187))
-                ));
-                g.fillOval(x - 14, y - 14, 28, 28);
-                g.setStroke(Color.rgb(8, 44, 90));
-                g.setLineWidth(2.5);
-                g.strokeOval(x - 14, y - 14, 28, 28);
+                drawPiece(g, x, y, v);
                 g.setStroke(Color.rgb(245, 250, 255));
                 g.setLineWidth(1.2);
                 g.strokeOval(x - 11.5, y - 11.5, 8, 8);
             } else if (v == 2) { // CPU
-                g.setFill(new RadialGradient(
-                        0, 0, x - 4, y - 6, 16, false, CycleMethod.NO_CYCLE,
-                        new Stop(0, Color.rgb(255, 223, 206)),
-                        new Stop(1, Color.rgb(184, 43, 27))
-                ));
-                g.fillOval(x - 14, y - 14, 28, 28);
-                g.setStroke(Color.rgb(96, 17, 10));
-                g.setLineWidth(2.5);
-                g.strokeOval(x - 14, y - 14, 28, 28);
+                drawPiece(g, x, y, v);
                 g.setStroke(Color.rgb(255, 245, 241));
                 g.setLineWidth(1.2);
                 g.strokeOval(x - 11.5, y - 11.5, 8, 8);
@@ -377,6 +421,7 @@ public class GameController {
         }
 
         // CPU last move highlight
+        Integer lastCpuTo = session.getLastCpuTo();
         if (lastCpuTo != null) {
             double x = nodePos[lastCpuTo][0];
             double y = nodePos[lastCpuTo][1];
@@ -388,24 +433,36 @@ public class GameController {
         updateCoinCounters();
     }
 
+    private static void drawPiece(GraphicsContext gc, double x, double y, int playerCode) {
+        boolean human = playerCode == Player.HUMAN.code();
+        gc.setFill(human ? HUMAN_FILL : CPU_FILL);
+        gc.fillOval(x - 14, y - 14, 28, 28);
+        gc.setStroke(human ? HUMAN_RIM : CPU_RIM);
+        gc.setLineWidth(2.5);
+        gc.strokeOval(x - 14, y - 14, 28, 28);
+    }
+
+    // one animation frame: clear the piece's previous rectangle on the overlay, draw it at (x, y)
     private void drawMovingPiece(double x, double y, int playerCode) {
-        g.setFill(playerCode == Player.HUMAN.code()
-                ? new RadialGradient(
-                        0, 0, x - 4, y - 6, 16, false, CycleMethod.NO_CYCLE,
-                        new Stop(0, Color.rgb(218, 239, 255)),
-                        new Stop(1, Color.rgb(24, 99, 187))
-                )
-                : new RadialGradient(
-                        0, 0, x - 4, y - 6, 16, false, CycleMethod.NO_CYCLE,
-                        new Stop(0, Color.rgb(255, 223, 206)),
-                        new Stop(1, Color.rgb(184, 43, 27))
-                ));
-        g.fillOval(x - 14, y - 14, 28, 28);
-        g.setStroke(playerCode == Player.HUMAN.code()
-                ? Color.rgb(8, 44, 90)
-                : Color.rgb(96, 17, 10));
-        g.setLineWidth(2.5);
-        g.strokeOval(x - 14, y - 14, 28, 28);
+        RedrawEvent event = new RedrawEvent();
+        event.begin();
+        clearMovingPiece();
+        drawPiece(overlayG, x, y, playerCode);
+        overlayX = x;
+        overlayY = y;
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = "frame";
+            event.hiddenIndex = -1;
+            event.commit();
+        }
+    }
+
+    private void clearMovingPiece() {
+        if (Double.isNaN(overlayX)) return;
+        overlayG.clearRect(overlayX - PIECE_EXTENT, overlayY - PIECE_EXTENT, PIECE_EXTENT * 2, PIECE_EXTENT * 2);
+        overlayX = Double.NaN;
+        overlayY = Double.NaN;
     }
 
     private void updateCoinCounters() {
@@ -416,234 +473,6 @@ public class GameController {
         cpuCoinsLabel.setText("CPU Coins: " + cpuCount);
     }
 
-    // ========================= CLICK LOGIC =========================
-
-    private void handleHumanClick(int pos) {
-        if (animating || gameOver) return;
-        if (currentPlayer != Player.HUMAN) return;
-
-        if (!hasAnyLegalMove(Player.HUMAN)) {
-            endGame("Oops! You lost. No legal moves.", false);
-            return;
-        }
-
-        // REMOVAL MODE
-        if (waitingForRemoval) {
-            if (removalCandidates.contains(pos)) {
-                board.getCells()[pos] = 0;
-                addCommentary("Human removed CPU piece at " + nodeName(pos) + ".");
-                waitingForRemoval = false;
-                removalCandidates.clear();
-                drawBoard();
-                if (checkCpuDefeatAfterHumanTurn()) return;
-                handOverToCpu();
-            } else if (board.getCells()[pos] == Player.CPU.code()) {
-                status.setText("That CPU piece is protected in a mill. Choose a highlighted piece.");
-            } else {
-                status.setText("Choose a highlighted CPU piece to remove.");
-            }
-            return;
-        }
-
-        // PLACEMENT PHASE
-        boolean placement = isPlacementPhase();
-
-        if (placement) {
-            if (!board.isEmpty(pos)) {
-                status.setText("Select an empty point.");
-                return;
-            }
-
-            board.applyMove(Move.placement(pos), Player.HUMAN.code());
-            addCommentary("Human placed at " + nodeName(pos) + ".");
-
-            if (board.formsMill(Player.HUMAN.code(), pos)) {
-                waitingForRemoval = true;
-                removalCandidates = board.candidateRemovals(Player.CPU.code());
-                if (removalCandidates.isEmpty()) {
-                    waitingForRemoval = false;
-                    status.setText("Mill formed, but no removable CPU pieces.");
-                    addCommentary("Human formed a mill, but no CPU piece could be removed.");
-                    drawBoard();
-                    if (checkCpuDefeatAfterHumanTurn()) return;
-                    handOverToCpu();
-                    return;
-                }
-                status.setText("Nice! Mill formed. Remove a CPU piece.");
-                addCommentary("Human formed a mill and must remove one CPU piece.");
-                drawBoard();
-                return;
-            }
-
-            drawBoard();
-            if (checkCpuDefeatAfterHumanTurn()) return;
-            handOverToCpu();
-            return;
-        }
-
-        // MOVEMENT PHASE
-
-        // No piece selected yet
-        if (selectedSource == -1) {
-            if (board.getCells()[pos] != Player.HUMAN.code()) {
-                status.setText("Select your piece.");
-                return;
-            }
-            selectedSource = pos;
-            validDestinations = computeValidMoves(pos);
-            status.setText("Choose destination.");
-            drawBoard();
-            return;
-        }
-
-        // Unselect
-        if (pos == selectedSource) {
-            selectedSource = -1;
-            validDestinations.clear();
-            drawBoard();
-            status.setText("Selection cancelled.");
-            addCommentary("Human cancelled piece selection.");
-            return;
-        }
-
-        // Valid move
-        if (validDestinations.contains(pos)) {
-            Move m = Move.normal(selectedSource, pos);
-            selectedSource = -1;
-            validDestinations.clear();
-
-            // animate HUMAN move, then apply logic
-            animateMove(m, Player.HUMAN.code(), () -> {
-                board.applyMove(m, Player.HUMAN.code());
-                addCommentary("Human moved " + nodeName(m.from) + " -> " + nodeName(m.to) + ".");
-
-                if (board.formsMill(Player.HUMAN.code(), m.to)) {
-                    waitingForRemoval = true;
-                    removalCandidates = board.candidateRemovals(Player.CPU.code());
-                    if (removalCandidates.isEmpty()) {
-                    waitingForRemoval = false;
-                    status.setText("Mill formed, but no removable CPU pieces.");
-                    addCommentary("Human formed a mill, but no CPU piece could be removed.");
-                    drawBoard();
-                    if (checkCpuDefeatAfterHumanTurn()) return;
-                    handOverToCpu();
-                } else {
-                    status.setText("Nice! Mill formed. Remove a CPU piece.");
-                    addCommentary("Human formed a mill and must remove one CPU piece.");
-                    drawBoard();
-                }
-            } else {
-                drawBoard();
-                if (checkCpuDefeatAfterHumanTurn()) return;
-                handOverToCpu();
-                }
-            });
-            return;
-        }
-
-        status.setText("Invalid move.");
-        addCommentary("Invalid move attempted at " + nodeName(pos) + ".");
-    }
-
-    // ========================= MOVE OPTIONS =========================
-
-    private List<Integer> computeValidMoves(int pos) {
-        List<Integer> list = new ArrayList<>();
-
-        int count = board.countPieces(Player.HUMAN.code());
-        boolean flying = (count == 3);
-
-        if (flying) {
-            for (int i = 0; i < 24; i++) if (board.isEmpty(i)) list.add(i);
-            return list;
-        }
-
-        for (int nb : Constants.ADJ.get(pos)) {
-            if (board.isEmpty(nb)) list.add(nb);
-        }
-        return list;
-    }
-
-    // ========================= CPU TURN =========================
-
-    private void cpuTurn() {
-        if (animating || gameOver) return;
-        if (currentPlayer != Player.CPU) return;
-
-        List<Move> cpuMoves = board.generateLegalMoves(Player.CPU.code());
-        if (cpuMoves.isEmpty()) {
-            endGame("Hurray! You won! CPU has no moves.", true);
-            return;
-        }
-
-        Move best = cpuStrategy.getBestMove(board, Player.CPU, Player.HUMAN);
-        if (best == null) {
-            endGame("Hurray! You won! CPU is stuck.", true);
-            return;
-        }
-
-        lastCpuTo = best.to;
-
-        // PLACEMENT move
-        if (best.from == -1) {
-            board.applyMove(best, Player.CPU.code());
-            addCommentary("CPU placed at " + nodeName(best.to) + ".");
-
-            if (board.formsMill(Player.CPU.code(), best.to)) {
-                List<Integer> rem = board.candidateRemovals(Player.HUMAN.code());
-                if (!rem.isEmpty()) {
-                    int r = rem.get(0);
-                    board.getCells()[r] = 0;
-                    addCommentary("CPU formed a mill and removed your piece at " + nodeName(r) + ".");
-                }
-            }
-
-            if (!isPlacementPhase() && board.countPieces(Player.HUMAN.code()) <= 2) {
-                drawBoard();
-                endGame("Oops! You lost. Only 2 pieces left.", false);
-                return;
-            }
-
-            drawBoard();
-            if (!isPlacementPhase() && !hasAnyLegalMove(Player.HUMAN)) {
-                endGame("Oops! You lost. No legal moves.", false);
-                return;
-            }
-            currentPlayer = Player.HUMAN;
-            status.setText("Your turn.");
-            return;
-        }
-
-        // MOVEMENT move → animate
-        animateMove(best, Player.CPU.code(), () -> {
-            board.applyMove(best, Player.CPU.code());
-            addCommentary("CPU moved " + nodeName(best.from) + " -> " + nodeName(best.to) + ".");
-
-            if (board.formsMill(Player.CPU.code(), best.to)) {
-                List<Integer> rem = board.candidateRemovals(Player.HUMAN.code());
-                if (!rem.isEmpty()) {
-                    int r = rem.get(0);
-                    board.getCells()[r] = 0;
-                    addCommentary("CPU formed a mill and removed your piece at " + nodeName(r) + ".");
-                }
-            }
-
-            if (!isPlacementPhase() && board.countPieces(Player.HUMAN.code()) <= 2) {
-                drawBoard();
-                endGame("Oops! You lost. Only 2 pieces left.", false);
-                return;
-            }
-
-            drawBoard();
-            if (!isPlacementPhase() && !hasAnyLegalMove(Player.HUMAN)) {
-                endGame("Oops! You lost. No legal moves.", false);
-                return;
-            }
-            currentPlayer = Player.HUMAN;
-            status.setText("Your turn.");
-        });
-    }
-
     // ========================= ANIMATION =========================
 
     private void animateMove(Move m, int playerCode, Runnable afterLogic) {
@@ -652,8 +481,6 @@ public class GameController {
             return;
         }
 
-        animating = true;
-
         double startX = nodePos[m.from][0];
         double startY = nodePos[m.from][1];
         double endX   = nodePos[m.to][0];
@@ -661,11 +488,13 @@ public class GameController {
 
         DoubleProperty t = new SimpleDoubleProperty(0.0);
 
+        // the pieces layer is repainted once without the moving piece; frames only touch the overlay
+        drawBoard(m.from);
+        drawMovingPiece(startX, startY, playerCode);
         t.addListener((obs, oldVal, newVal) -> {
             double tt = newVal.doubleValue();
             double x = startX + (endX - startX) * tt;
             double y = startY + (endY - startY) * tt;
-            drawBoard(m.from); // hide original piece during animation
             drawMovingPiece(x, y, playerCode);
         });
 
@@ -676,7 +505,7 @@ public class GameController {
                 new KeyFrame(Duration.millis(250), new KeyValue(t, 1.0))
         );
         moveTimeline.setOnFinished(e -> {
-            animating = false;
+            clearMovingPiece();
             if (afterLogic != null) afterLogic.run();
         });
         moveTimeline.play();
@@ -685,38 +514,7 @@ public class GameController {
     // ========================= UTIL =========================
 
     private int findNearestNode(double x, double y) {
-        for (int i = 0; i < 24; i++) {
-            double dx = x - nodePos[i][0];
-            double dy = y - nodePos[i][1];
-            if (dx * dx + dy * dy <= 18 * 18) return i;
-        }
-        return -1;
-    }
-
-    private boolean hasAnyLegalMove(Player player) {
-        List<Move> moves = board.generateLegalMoves(player.code());
-        return moves != null && !moves.isEmpty();
-    }
-
-    private boolean isPlacementPhase() {
-        List<Move> moves = board.generateLegalMoves(Player.HUMAN.code());
-        return moves.stream().anyMatch(m -> m.from == -1);
-    }
-
-    private boolean checkCpuDefeatAfterHumanTurn() {
-        if (!isPlacementPhase() && board.countPieces(Player.CPU.code()) <= 2) {
-            endGame("Hurray! You won! CPU has only 2 pieces left.", true);
-            return true;
-        }
-        if (!isPlacementPhase() && !hasAnyLegalMove(Player.CPU)) {
-            endGame("Hurray! You won! CPU has no legal moves.", true);
-            return true;
-        }
-        return false;
-    }
-
-    private String nodeName(int idx) {
-        return "P" + (idx + 1);
+        return hitGrid.find(x, y);
     }
 
     private void addCommentary(String line) {
@@ -726,11 +524,6 @@ public class GameController {
         commentaryArea.positionCaret(commentaryArea.getText().length());
     }
 
-    private void handOverToCpu() {
-        currentPlayer = Player.CPU;
-        cpuTurn();
-    }
-
     private void startBackgroundAnimation() {
         if (bgTimeline != null) bgTimeline.stop();
         bgTimeline = new Timeline(
@@ -756,18 +549,16 @@ public class GameController {
         alert.showAndWait();
     }
 
-    private void endGame(String message, boolean humanWon) {
-        if (gameOver) return;
-        gameOver = true;
-        status.setText(message);
-        addCommentary(message);
+    // status and commentary were already updated by the session
+    private void showGameOver(String message, boolean humanWon) {
         canvas.setDisable(true);
-        algoSelect.setDisable(true);
+        levelSelect.setDisable(true);
+        hintBtn.setDisable(true);
         if (bgTimeline != null) bgTimeline.stop();
         Platform.runLater(() -> {
             Alert alert = new Alert(Alert.AlertType.INFORMATION, "", ButtonType.OK);
             alert.setTitle("Game Over");
-            alert.setHeaderText(humanWon ? "Hurray! You won!" : "Oops! You lost.");
+            alert.setHeaderText(session.isDraw() ? "It's a draw." : humanWon ? "Hurray! You won!" : "Oops! You lost.");
             alert.setContentText(message);
             alert.showAndWait();
         });
@@ -0,0 +1,328 @@
+package morris.controller;
+
+import morris.ai.CpuStrategy;
+import morris.metrics.MetricsRegistry;
+import morris.model.Board;
+import morris.model.Move;
+import morris.model.Player;
+import morris.model.PositionHistory;
+import morris.model.Rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Game logic of the GUI without any JavaFX dependency: human clicks, the CPU
+ * reply, mill removals and game-over detection, including the repetition and
+ * no-capture draws of PositionHistory. GameController renders it through a
+ * View; the replay harness drives it with a no-op view, in which case moves
+ * are applied immediately instead of after an animation.
+ */
+public class GameSession {
+
+    /** Callbacks from the session to whatever displays it. All default to no-ops. */
+    public interface View {
+        default void status(String text) {}
+        default void commentary(String line) {}
+        default void boardChanged() {}
+        default void gameOver(String message, boolean humanWon) {}
+
+        // show a movement move, then run done; headless views run it straight away
+        default void animate(Move m, int playerCode, Runnable done) {
+            done.run();
+        }
+    }
+
+    private static final View HEADLESS = new View() {};
+
+    private final Board board;
+    private final View view;
+    private final DestinationCache destinationCache = new DestinationCache();
+    // every position after a complete turn, with the side to move next
+    private final PositionHistory history = new PositionHistory();
+    private CpuStrategy cpuStrategy;
+    private Player currentPlayer = Player.HUMAN;
+
+    // --- movement UI state ---
+    private int selectedSource = -1;
+    private List<Integer> validDestinations = new ArrayList<>();
+    private int validDestinationMask = 0;
+    private boolean waitingForRemoval = false;
+    private List<Integer> removalCandidates = new ArrayList<>();
+
+    private boolean busy = false;
+    private Integer lastCpuTo = null;
+    private boolean gameOver = false;
+    private boolean humanWon = false;
+    private boolean draw = false;
+    private String resultMessage = null;
+
+    public GameSession(CpuStrategy cpuStrategy) {
+        this(cpuStrategy, HEADLESS);
+    }
+
+    public GameSession(CpuStrategy cpuStrategy, View view) {
+        this.board = new Board();
+        this.view = view;
+        history.push(board, Player.HUMAN.code());
+        setCpuStrategy(cpuStrategy);
+    }
+
+    public void start() {
+        view.boardChanged();
+        view.commentary("Game started. Placement phase begins.");
+        MetricsRegistry.global().gameStarted();
+    }
+
+    // ========================= STATE =========================
+
+    public Board getBoard() { return board; }
+    public Player getCurrentPlayer() { return currentPlayer; }
+    public CpuStrategy getCpuStrategy() { return cpuStrategy; }
+    public void setCpuStrategy(CpuStrategy cpuStrategy) {
+        this.cpuStrategy = cpuStrategy;
+        if (cpuStrategy != null) cpuStrategy.setGameHistory(history);
+    }
+    public PositionHistory getHistory() { return history; }
+    public int getSelectedSource() { return selectedSource; }
+    public List<Integer> getValidDestinations() { return validDestinations; }
+    public boolean isWaitingForRemoval() { return waitingForRemoval; }
+    public List<Integer> getRemovalCandidates() { return removalCandidates; }
+    public Integer getLastCpuTo() { return lastCpuTo; }
+    // true while a move is being animated; clicks are ignored until it is applied
+    public boolean isBusy() { return busy; }
+    public boolean isGameOver() { return gameOver; }
+    public boolean isHumanWinner() { return humanWon; }
+    public boolean isDraw() { return draw; }
+    public String getResultMessage() { return resultMessage; }
+
+    // ========================= CLICK LOGIC =========================
+
+    public void click(int pos) {
+        if (busy || gameOver) return;
+        if (currentPlayer != Player.HUMAN) return;
+
+        if (Rules.isGameOver(board, Player.HUMAN.code())) {
+            endGame("Oops! You lost. No legal moves.", false);
+            return;
+        }
+
+        // REMOVAL MODE
+        if (waitingForRemoval) {
+            if (removalCandidates.contains(pos)) {
+                board.removePiece(pos);
+                view.commentary("Human removed CPU piece at " + nodeName(pos) + ".");
+                waitingForRemoval = false;
+                removalCandidates.clear();
+                view.boardChanged();
+                if (checkCpuDefeatAfterHumanTurn()) return;
+                handOverToCpu();
+            } else if (board.getCells()[pos] == Player.CPU.code()) {
+                view.status("That CPU piece is protected in a mill. Choose a highlighted piece.");
+            } else {
+                view.status("Choose a highlighted CPU piece to remove.");
+            }
+            return;
+        }
+
+        // PLACEMENT PHASE
+        boolean placement = isPlacementPhase();
+
+        if (placement) {
+            if (!board.isEmpty(pos)) {
+                view.status("Select an empty point.");
+                return;
+            }
+
+            board.applyMove(Move.placement(pos), Player.HUMAN.code());
+            view.commentary("Human placed at " + nodeName(pos) + ".");
+            afterHumanMove(pos);
+            return;
+        }
+
+        // MOVEMENT PHASE
+
+        // No piece selected yet
+        if (selectedSource == -1) {
+            if (board.getCells()[pos] != Player.HUMAN.code()) {
+                view.status("Select your piece.");
+                return;
+            }
+            selectedSource = pos;
+            validDestinationMask = destinationCache.destinations(board, Player.HUMAN.code(), pos);
+            validDestinations = pointList(validDestinationMask);
+            view.status("Choose destination.");
+            view.boardChanged();
+            return;
+        }
+
+        // Unselect
+        if (pos == selectedSource) {
+            clearSelection();
+            view.boardChanged();
+            view.status("Selection cancelled.");
+            view.commentary("Human cancelled piece selection.");
+            return;
+        }
+
+        // Valid move
+        if ((validDestinationMask >>> pos & 1) != 0) {
+            Move m = Move.normal(selectedSource, pos);
+            clearSelection();
+
+            animate(m, Player.HUMAN.code(), () -> {
+                board.applyMove(m, Player.HUMAN.code());
+                view.commentary("Human moved " + nodeName(m.from) + " -> " + nodeName(m.to) + ".");
+                afterHumanMove(m.to);
+            });
+            return;
+        }
+
+        view.status("Invalid move.");
+        view.commentary("Invalid move attempted at " + nodeName(pos) + ".");
+    }
+
+    private void afterHumanMove(int to) {
+        if (board.formsMill(Player.HUMAN.code(), to)) {
+            waitingForRemoval = true;
+            removalCandidates = board.candidateRemovals(Player.CPU.code());
+            if (removalCandidates.isEmpty()) {
+                waitingForRemoval = false;
+                view.status("Mill formed, but no removable CPU pieces.");
+                view.commentary("Human formed a mill, but no CPU piece could be removed.");
+                view.boardChanged();
+                if (checkCpuDefeatAfterHumanTurn()) return;
+                handOverToCpu();
+                return;
+            }
+            view.status("Nice! Mill formed. Remove a CPU piece.");
+            view.commentary("Human formed a mill and must remove one CPU piece.");
+            view.boardChanged();
+            return;
+        }
+
+        view.boardChanged();
+        if (checkCpuDefeatAfterHumanTurn()) return;
+        handOverToCpu();
+    }
+
+    private void clearSelection() {
+        selectedSource = -1;
+        validDestinations.clear();
+        validDestinationMask = 0;
+    }
+
+    private static List<Integer> pointList(int mask) {
+        List<Integer> list = new ArrayList<>();
+        for (; mask != 0; mask &= mask - 1) {
+            list.add(Integer.numberOfTrailingZeros(mask));
+        }
+        return list;
+    }
+
+    // ========================= CPU TURN =========================
+
+    private void cpuTurn() {
+        if (busy || gameOver) return;
+        if (currentPlayer != Player.CPU) return;
+
+        if (Rules.isGameOver(board, Player.CPU.code())) {
+            endGame("Hurray! You won! CPU has no moves.", true);
+            return;
+        }
+
+        // complete move: applyMove also takes the piece the strategy chose to remove
+        Move best = cpuStrategy.search(board, Player.CPU, Player.HUMAN).move;
+        if (best == null) {
+            endGame("Hurray! You won! CPU is stuck.", true);
+            return;
+        }
+
+        lastCpuTo = best.to;
+
+        // PLACEMENT move
+        if (best.from == -1) {
+            board.applyMove(best, Player.CPU.code());
+            view.commentary("CPU placed at " + nodeName(best.to) + ".");
+            afterCpuMove(best);
+            return;
+        }
+
+        // MOVEMENT move → animate
+        animate(best, Player.CPU.code(), () -> {
+            board.applyMove(best, Player.CPU.code());
+            view.commentary("CPU moved " + nodeName(best.from) + " -> " + nodeName(best.to) + ".");
+            afterCpuMove(best);
+        });
+    }
+
+    private void afterCpuMove(Move best) {
+        if (best.removed != -1) {
+            view.commentary("CPU formed a mill and removed your piece at " + nodeName(best.removed) + ".");
+        }
+
+        view.boardChanged();
+        if (Rules.isGameOver(board, Player.HUMAN.code())) {
+            endGame(board.countPieces(Player.HUMAN.code()) <= 2
+                    ? "Oops! You lost. Only 2 pieces left."
+                    : "Oops! You lost. No legal moves.", false);
+            return;
+        }
+        if (checkDraw(Player.HUMAN)) return;
+        currentPlayer = Player.HUMAN;
+        view.status("Your turn.");
+    }
+
+    // ========================= UTIL =========================
+
+    private void animate(Move m, int playerCode, Runnable afterLogic) {
+        busy = true;
+        view.animate(m, playerCode, () -> {
+            busy = false;
+            afterLogic.run();
+        });
+    }
+
+    public boolean isPlacementPhase() {
+        return board.isPlacementPhase();
+    }
+
+    private boolean checkCpuDefeatAfterHumanTurn() {
+        if (!Rules.isGameOver(board, Player.CPU.code())) return false;
+        endGame(board.countPieces(Player.CPU.code()) <= 2
+                ? "Hurray! You won! CPU has only 2 pieces left."
+                : "Hurray! You won! CPU has no legal moves.", true);
+        return true;
+    }
+
+    private void handOverToCpu() {
+        if (checkDraw(Player.CPU)) return;
+        currentPlayer = Player.CPU;
+        cpuTurn();
+    }
+
+    // records the finished turn; ends the game when the position is drawn by repetition or the no-capture rule
+    private boolean checkDraw(Player toMove) {
+        history.push(board, toMove.code());
+        String reason = history.drawReason();
+        if (reason == null) return false;
+        draw = true;
+        endGame("Draw by " + reason + ".", false);
+        return true;
+    }
+
+    private void endGame(String message, boolean humanWon) {
+        if (gameOver) return;
+        gameOver = true;
+        this.humanWon = humanWon;
+        this.resultMessage = message;
+        MetricsRegistry.global().gameFinished(draw ? "draw" : humanWon ? "human_win" : "cpu_win");
+        view.status(message);
+        view.commentary(message);
+        view.gameOver(message, humanWon);
+    }
+
+    public static String nodeName(int idx) {
+        return "P" + (idx + 1);
+    }
+}
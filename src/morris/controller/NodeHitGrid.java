@@ -0,0 +1,75 @@
+package morris.controller;
+
+import java.util.Arrays;
+
+/**
+ * Maps canvas coordinates to board points in constant time.
+ *
+ * The canvas is cut into square cells one hit-diameter wide; every cell keeps
+ * the points whose hit circle touches it (at most a couple, since points are
+ * further apart than a diameter). A click looks up its cell and distance-checks
+ * only those points. Call rebuild whenever the node positions or the canvas
+ * size change.
+ */
+public class NodeHitGrid {
+
+    private static final int[] NONE = new int[0];
+
+    private double[][] nodePos = new double[0][];
+    private double radius;
+    private double cellSize = 1;
+    private int cols, rows;
+    private int[][] cells = new int[0][];
+
+    public NodeHitGrid() {}
+
+    public NodeHitGrid(double[][] nodePos, double radius, double width, double height) {
+        rebuild(nodePos, radius, width, height);
+    }
+
+    public void rebuild(double[][] nodePos, double radius, double width, double height) {
+        if (radius <= 0) throw new IllegalArgumentException("radius must be positive: " + radius);
+        this.nodePos = nodePos;
+        this.radius = radius;
+        this.cellSize = radius * 2;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new int[cols * rows][];
+        Arrays.fill(cells, NONE);
+
+        for (int i = 0; i < nodePos.length; i++) {
+            double x = nodePos[i][0], y = nodePos[i][1];
+            int c0 = clamp((int) Math.floor((x - radius) / cellSize), cols);
+            int c1 = clamp((int) Math.floor((x + radius) / cellSize), cols);
+            int r0 = clamp((int) Math.floor((y - radius) / cellSize), rows);
+            int r1 = clamp((int) Math.floor((y + radius) / cellSize), rows);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int[] old = cells[r * cols + c];
+                    int[] grown = Arrays.copyOf(old, old.length + 1);
+                    grown[old.length] = i; // indices stay ascending, same tie-break as a linear scan
+                    cells[r * cols + c] = grown;
+                }
+            }
+        }
+    }
+
+    // index of the first point within radius of (x, y), or -1
+    public int find(double x, double y) {
+        if (x < 0 || y < 0) return -1;
+        int c = (int) (x / cellSize);
+        int r = (int) (y / cellSize);
+        if (c >= cols || r >= rows) return -1;
+        double r2 = radius * radius;
+        for (int i : cells[r * cols + c]) {
+            double dx = x - nodePos[i][0];
+            double dy = y - nodePos[i][1];
+            if (dx * dx + dy * dy <= r2) return i;
+        }
+        return -1;
+    }
+
+    private static int clamp(int v, int n) {
+        return Math.max(0, Math.min(n - 1, v));
+    }
+}
@@ -0,0 +1,40 @@
+package morris.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR instant event for a single evaluation-cache or transposition-table probe.
+ * Disabled by default (probes run at search speed); enable morris.CacheProbe
+ * in the recording settings for short, focused recordings.
+ */
+@Name("morris.CacheProbe")
+@Label("Cache Probe")
+@Category({"Nine Men's Morris", "Search"})
+@Description("Evaluation cache / transposition table lookup")
+@Enabled(false)
+@StackTrace(false)
+public class CacheProbeEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Position Key")
+    public long key;
+
+    @Label("Hit")
+    public boolean hit;
+
+    public static void emit(String cache, long key, boolean hit) {
+        CacheProbeEvent event = new CacheProbeEvent();
+        if (!event.isEnabled()) return;
+        event.cache = cache;
+        event.key = key;
+        event.hit = hit;
+        event.commit();
+    }
+}
@@ -0,0 +1,19 @@
+package morris.metrics;
+
+import morris.model.Board;
+
+/**
+ * Phase of the player to move, used as a metrics label.
+ */
+public enum GamePhase {
+    PLACEMENT("placement"), MOVEMENT("movement"), FLYING("flying");
+
+    private final String label;
+    GamePhase(String label) { this.label = label; }
+    public String label() { return label; }
+
+    public static GamePhase of(Board board, int playerCode) {
+        if (board.isPlacementPhase()) return PLACEMENT;
+        return board.isFlying(playerCode) ? FLYING : MOVEMENT;
+    }
+}
@@ -0,0 +1,98 @@
+package morris.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes MetricsRegistry.global() in Prometheus text format, either on a
+ * loopback HTTP endpoint (GET /metrics) or as a file rewritten periodically.
+ *
+ * Enabled from system properties:
+ *   -Dmorris.metrics.port=9404          HTTP endpoint on 127.0.0.1
+ *   -Dmorris.metrics.file=metrics.prom  file dump
+ *   -Dmorris.metrics.interval=15        file dump period in seconds
+ */
+public final class MetricsExporter {
+
+    private static HttpServer server;
+    private static ScheduledExecutorService dumper;
+
+    private MetricsExporter() {}
+
+    public static synchronized void startFromSystemProperties() {
+        String port = System.getProperty("morris.metrics.port");
+        String file = System.getProperty("morris.metrics.file");
+        try {
+            if (port != null) startHttp(Integer.parseInt(port.trim()));
+            if (file != null) {
+                long interval = Long.parseLong(System.getProperty("morris.metrics.interval", "15").trim());
+                startFileDump(Paths.get(file), interval);
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Metrics export disabled: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void startHttp(int port) throws IOException {
+        if (server != null) return;
+        HttpServer s = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        s.createContext("/metrics", exchange -> {
+            byte[] body = PrometheusFormat.render(MetricsRegistry.global()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        s.start();
+        server = s;
+    }
+
+    public static synchronized void startFileDump(Path target, long intervalSeconds) {
+        if (dumper != null) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, intervalSeconds);
+        dumper.scheduleAtFixedRate(() -> dumpTo(target), period, period, TimeUnit.SECONDS);
+    }
+
+    // write to a temp file and rename, so scrapers never see a partial file
+    public static void dumpTo(Path target) {
+        try {
+            Path dir = target.toAbsolutePath().getParent();
+            Path tmp = Files.createTempFile(dir, "metrics", ".tmp");
+            Files.write(tmp, PrometheusFormat.render(MetricsRegistry.global()).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Metrics dump failed: " + e.getMessage());
+        }
+    }
+
+    // stops the endpoint and writes a last dump; the HTTP server thread would otherwise keep the JVM alive
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            String file = System.getProperty("morris.metrics.file");
+            if (file != null) dumpTo(Paths.get(file));
+        }
+    }
+}
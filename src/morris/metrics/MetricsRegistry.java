@@ -0,0 +1,62 @@
+package morris.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide metrics: move computation latency per strategy and phase, and
+ * game counters. Lookups after the first one per strategy are a single
+ * ConcurrentHashMap read, recording itself is lock-free.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, LatencyHistogram[]> moveLatency = new ConcurrentHashMap<>();
+    private final LongAdder gamesStarted = new LongAdder();
+    private final Map<String, LongAdder> gamesFinished = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public LatencyHistogram moveLatency(String strategy, GamePhase phase) {
+        return moveLatency.computeIfAbsent(strategy, k -> newPhaseHistograms())[phase.ordinal()];
+    }
+
+    public void recordMove(String strategy, GamePhase phase, long nanos) {
+        moveLatency(strategy, phase).record(nanos);
+    }
+
+    public void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    // outcome is a short label such as "human_win", "cpu_win" or "draw"
+    public void gameFinished(String outcome) {
+        gamesFinished.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    public long gamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    public Map<String, Long> gamesFinished() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : gamesFinished.entrySet()) out.put(e.getKey(), e.getValue().sum());
+        return out;
+    }
+
+    // strategy -> histograms indexed by GamePhase.ordinal(), sorted by strategy
+    public Map<String, LatencyHistogram[]> moveLatencies() {
+        return new TreeMap<>(moveLatency);
+    }
+
+    private static LatencyHistogram[] newPhaseHistograms() {
+        LatencyHistogram[] h = new LatencyHistogram[GamePhase.values().length];
+        for (int i = 0; i < h.length; i++) h[i] = new LatencyHistogram();
+        return h;
+    }
+}
@@ -0,0 +1,82 @@
+package morris.metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Renders a MetricsRegistry in the Prometheus text exposition format (0.0.4).
+ */
+public final class PrometheusFormat {
+
+    // histogram bucket bounds in seconds
+    private static final double[] LE_SECONDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025,
+            0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private PrometheusFormat() {}
+
+    public static String render(MetricsRegistry registry) {
+        StringBuilder sb = new StringBuilder(4096);
+
+        sb.append("# HELP morris_move_compute_seconds Time spent in CpuStrategy move computation.\n");
+        sb.append("# TYPE morris_move_compute_seconds histogram\n");
+        Map<String, LatencyHistogram[]> latencies = registry.moveLatencies();
+        for (Map.Entry<String, LatencyHistogram[]> e : latencies.entrySet()) {
+            for (GamePhase phase : GamePhase.values()) {
+                LatencyHistogram h = e.getValue()[phase.ordinal()];
+                if (h.count() == 0) continue;
+                String labels = "strategy=\"" + escape(e.getKey()) + "\",phase=\"" + phase.label() + "\"";
+                for (double le : LE_SECONDS) {
+                    sb.append("morris_move_compute_seconds_bucket{").append(labels)
+                            .append(",le=\"").append(num(le)).append("\"} ")
+                            .append(h.countAtOrBelow((long) (le * 1e9))).append('\n');
+                }
+                sb.append("morris_move_compute_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ")
+                        .append(h.count()).append('\n');
+                sb.append("morris_move_compute_seconds_sum{").append(labels).append("} ")
+                        .append(num(h.sumNanos() / 1e9)).append('\n');
+                sb.append("morris_move_compute_seconds_count{").append(labels).append("} ")
+                        .append(h.count()).append('\n');
+            }
+        }
+
+        sb.append("# HELP morris_move_compute_quantile_seconds Move computation latency quantiles (HDR buckets, ~6% precision).\n");
+        sb.append("# TYPE morris_move_compute_quantile_seconds gauge\n");
+        for (Map.Entry<String, LatencyHistogram[]> e : latencies.entrySet()) {
+            for (GamePhase phase : GamePhase.values()) {
+                LatencyHistogram h = e.getValue()[phase.ordinal()];
+                if (h.count() == 0) continue;
+                String labels = "strategy=\"" + escape(e.getKey()) + "\",phase=\"" + phase.label() + "\"";
+                for (double q : QUANTILES) {
+                    sb.append("morris_move_compute_quantile_seconds{").append(labels)
+                            .append(",quantile=\"").append(num(q)).append("\"} ")
+                            .append(num(h.percentileNanos(q) / 1e9)).append('\n');
+                }
+                sb.append("morris_move_compute_quantile_seconds{").append(labels).append(",quantile=\"1\"} ")
+                        .append(num(h.maxNanos() / 1e9)).append('\n');
+            }
+        }
+
+        sb.append("# HELP morris_games_started_total Games started.\n");
+        sb.append("# TYPE morris_games_started_total counter\n");
+        sb.append("morris_games_started_total ").append(registry.gamesStarted()).append('\n');
+
+        sb.append("# HELP morris_games_finished_total Games finished, by outcome.\n");
+        sb.append("# TYPE morris_games_finished_total counter\n");
+        for (Map.Entry<String, Long> e : registry.gamesFinished().entrySet()) {
+            sb.append("morris_games_finished_total{outcome=\"").append(escape(e.getKey())).append("\"} ")
+                    .append(e.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String num(double v) {
+        return BigDecimal.valueOf(v).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,28 @@
+package morris.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event spanning one repaint on the JavaFX thread: a pieces-layer redraw
+ * or a single animation frame on the overlay. The default threshold keeps only
+ * repaints long enough to put a 60 fps frame budget at risk.
+ */
+@Name("morris.Redraw")
+@Label("Board Redraw")
+@Category({"Nine Men's Morris", "UI"})
+@Description("GameController pieces layer or overlay repaint")
+@Threshold("4 ms")
+@StackTrace(false)
+public class RedrawEvent extends jdk.jfr.Event {
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Hidden Point")
+    public int hiddenIndex;
+}
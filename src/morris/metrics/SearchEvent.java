@@ -0,0 +1,58 @@
+package morris.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event spanning one CpuStrategy move computation. Only searches longer
+ * than the threshold are recorded by default; lower it in the recording
+ * settings (morris.Search#threshold) to see every move.
+ */
+@Name("morris.Search")
+@Label("CPU Move Search")
+@Category({"Nine Men's Morris", "Search"})
+@Description("One CpuStrategy.getBestMove call")
+@Threshold("1 ms")
+@StackTrace(false)
+public class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Move")
+    public String move;
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Max Ply")
+    public int maxPly;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Evaluations")
+    public long leafEvals;
+
+    @Label("Beta Cutoffs")
+    public long betaCutoffs;
+
+    @Label("Cache Probes")
+    public long cacheProbes;
+
+    @Label("Cache Hits")
+    public long cacheHits;
+
+    @Label("TT Probes")
+    public long ttProbes;
+
+    @Label("TT Hits")
+    public long ttHits;
+}
@@ -1,6 +1,7 @@
 package morris.model;
 
 import java.util.*;
+import morris.util.BitGraph;
 import morris.util.Constants;
 
 public class Board implements Cloneable {
@@ -11,26 +12,82 @@ public class Board implements Cloneable {
     // phase: 0 = placement, 1 = movement, 2 = flying (handled when pieceCount==3)
     private int phase = 0;
 
+    // occupancy of each side (bit i = point i), kept in step with cells by every mutator
+    private int humanMask = 0, cpuMask = 0;
+
+    public static final int PIECES_PER_PLAYER = 9;
+
     public Board() {
         Arrays.fill(cells, Constants.EMPTY);
     }
 
+    // read-only view; change the board through applyMove/makeMove/setCell/removePiece
+    // so the piece masks stay in step
     public int[] getCells() { return cells; }
 
+    public int getPhase() { return phase; }
+
+    public boolean isPlacementPhase() { return phase == 0; }
+
+    // pieces placed so far by player (0..9)
+    public int getPlacedCount(int playerCode) {
+        return (playerCode == Player.HUMAN.code()) ? humanPlaced : cpuPlaced;
+    }
+
+    // pieces the player still has to place
+    public int getPiecesInHand(int playerCode) {
+        return PIECES_PER_PLAYER - getPlacedCount(playerCode);
+    }
+
+    // after placement, a player down to three pieces may move to any empty point
+    public boolean isFlying(int playerCode) {
+        return phase != 0 && countPieces(playerCode) == 3;
+    }
+
+    // packed 58-bit key, see PositionCodec
+    public long positionKey() { return PositionCodec.encode(this); }
+
+    // used by PositionCodec after it has written the cells directly
+    void setCounters(int humanPlaced, int cpuPlaced, int phase) {
+        this.humanPlaced = humanPlaced;
+        this.cpuPlaced = cpuPlaced;
+        this.phase = phase;
+        humanMask = 0;
+        cpuMask = 0;
+        for (int i = 0; i < 24; i++) {
+            if (cells[i] == Constants.HUMAN) humanMask |= 1 << i;
+            else if (cells[i] == Constants.CPU) cpuMask |= 1 << i;
+        }
+    }
+
+    private void put(int idx, int playerCode) {
+        int bit = 1 << idx;
+        humanMask &= ~bit;
+        cpuMask &= ~bit;
+        if (playerCode == Constants.HUMAN) humanMask |= bit;
+        else if (playerCode == Constants.CPU) cpuMask |= bit;
+        cells[idx] = playerCode;
+    }
+
     public Board clone() {
         Board b = new Board();
-        System.arraycopy(this.cells, 0, b.cells, 0, 24);
-        b.humanPlaced = this.humanPlaced;
-        b.cpuPlaced = this.cpuPlaced;
-        b.phase = this.phase;
+        b.copyFrom(this);
         return b;
     }
 
-    // count pieces for player
+    // overwrite this board with 'other' (no allocation)
+    public void copyFrom(Board other) {
+        System.arraycopy(other.cells, 0, cells, 0, 24);
+        humanPlaced = other.humanPlaced;
+        cpuPlaced = other.cpuPlaced;
+        phase = other.phase;
+        humanMask = other.humanMask;
+        cpuMask = other.cpuMask;
+    }
+
+    // count pieces for player (EMPTY counts empty points)
     public int countPieces(int player) {
-        int c = 0;
-        for (int v : cells) if (v == player) c++;
-        return c;
+        return Integer.bitCount(occupancyMask(player));
     }
 
     public int countPiecesInList(int player, List<Integer> list) {
@@ -40,29 +97,81 @@ public class Board implements Cloneable {
     }
 
     public boolean isEmpty(int idx) { return cells[idx] == Constants.EMPTY; }
-    public void setCell(int idx, int player) { cells[idx] = player; }
+    public void setCell(int idx, int player) { put(idx, player); }
+
+    // take the piece on idx off the board (mill capture outside of applyMove)
+    public void removePiece(int idx) {
+        if (cells[idx] == Constants.EMPTY) throw new IllegalArgumentException("No piece at " + idx);
+        put(idx, Constants.EMPTY);
+    }
 
     // apply move (assumes legal)
     public void applyMove(Move m, int playerCode) {
         if (m.from == -1) {
             // placement
-            cells[m.to] = playerCode;
+            put(m.to, playerCode);
             if (playerCode == Player.HUMAN.code()) humanPlaced++;
             else cpuPlaced++;
             if (humanPlaced + cpuPlaced >= 18) phase = 1; // finished placement
         } else {
             // normal move
-            cells[m.from] = Constants.EMPTY;
-            cells[m.to] = playerCode;
+            put(m.from, Constants.EMPTY);
+            put(m.to, playerCode);
         }
         if (m.removed != -1) {
-            cells[m.removed] = Constants.EMPTY;
+            put(m.removed, Constants.EMPTY);
         }
         // flying handled by move generation: if piece count becomes 3, generation allows flying
     }
 
+    // revert applyMove: prevFromValue/prevRemovedValue are the cell values before the move
     public void undoMove(Move m, int prevFromValue, int prevRemovedValue, int playerCode) {
-        // revert: this is only used inside minimax clone context; simpler approach is to use clone instead of undo.
+        if (m.removed != -1) put(m.removed, prevRemovedValue);
+        put(m.to, Constants.EMPTY);
+        if (m.from == -1) {
+            if (playerCode == Player.HUMAN.code()) humanPlaced--;
+            else cpuPlaced--;
+            phase = (humanPlaced + cpuPlaced >= 18) ? 1 : 0;
+        } else {
+            put(m.from, prevFromValue);
+        }
+    }
+
+    // applyMove for a MoveList-packed move (no allocation)
+    public void makeMove(int move, int playerCode) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        int removed = MoveList.removed(move);
+        if (from == -1) {
+            put(to, playerCode);
+            if (playerCode == Player.HUMAN.code()) humanPlaced++;
+            else cpuPlaced++;
+            if (humanPlaced + cpuPlaced >= 18) phase = 1;
+        } else {
+            put(from, Constants.EMPTY);
+            put(to, playerCode);
+        }
+        if (removed != -1) put(removed, Constants.EMPTY);
+    }
+
+    // exact inverse of makeMove(move, playerCode)
+    public void unmakeMove(int move, int playerCode) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        int removed = MoveList.removed(move);
+        if (removed != -1) put(removed, opponentOf(playerCode));
+        put(to, Constants.EMPTY);
+        if (from == -1) {
+            if (playerCode == Player.HUMAN.code()) humanPlaced--;
+            else cpuPlaced--;
+            phase = (humanPlaced + cpuPlaced >= 18) ? 1 : 0;
+        } else {
+            put(from, playerCode);
+        }
+    }
+
+    private static int opponentOf(int playerCode) {
+        return playerCode == Player.HUMAN.code() ? Player.CPU.code() : Player.HUMAN.code();
     }
 
     // generate legal moves for player (handles phases)
@@ -98,70 +207,100 @@ public class Board implements Cloneable {
         return moves;
     }
 
-    // check if placing/moving to 'pos' by 'player' forms a mill
-    public boolean formsMill(int playerCode, int pos) {
-        for (int[] mill : Constants.MILLS) {
-            boolean contains = false;
-            for (int m : mill) if (m == pos) { contains = true; break; }
-            if (!contains) continue;
-            boolean all = true;
-            for (int m : mill) {
-                if (cells[m] != playerCode) {
-                    all = false;
-                    break;
+    // same moves and order as generateLegalMoves, packed into 'out' (cleared first)
+    public void generateLegalMoves(int playerCode, MoveList out) {
+        out.clear();
+        if (phase == 0) {
+            for (int i = 0; i < 24; i++) {
+                if (cells[i] == Constants.EMPTY) out.add(MoveList.pack(-1, i, -1));
+            }
+            return;
+        }
+        boolean flying = countPieces(playerCode) == 3;
+        for (int i = 0; i < 24; i++) {
+            if (cells[i] != playerCode) continue;
+            if (flying) {
+                for (int j = 0; j < 24; j++) if (cells[j] == Constants.EMPTY) out.add(MoveList.pack(i, j, -1));
+            } else {
+                for (int nb : Constants.ADJ.get(i)) {
+                    if (cells[nb] == Constants.EMPTY) out.add(MoveList.pack(i, nb, -1));
                 }
             }
-            // if pos not yet set in board when simulating, caller should use clone+apply before calling formsMill
-            if (all) return true;
         }
-        return false;
+    }
+
+    // number of moves generateLegalMoves(playerCode) returns, without generating them
+    public int mobility(int playerCode) {
+        int empty = occupancyMask(Constants.EMPTY);
+        if (phase == 0) return Integer.bitCount(empty);
+        int own = occupancyMask(playerCode);
+        if (Integer.bitCount(own) == 3) return 3 * Integer.bitCount(empty);
+        return BitGraph.steps(own, empty);
+    }
+
+    // check if placing/moving to 'pos' by 'player' forms a mill
+    // (only the two mills through pos are looked at)
+    public boolean formsMill(int playerCode, int pos) {
+        int[] pm = Constants.POINT_MILLS[pos];
+        return isMill(pm[0], playerCode) || isMill(pm[1], playerCode);
+    }
+
+    // true if all three points of MILLS[millIndex] belong to player
+    public boolean isMill(int millIndex, int playerCode) {
+        int[] mill = Constants.MILLS[millIndex];
+        return cells[mill[0]] == playerCode && cells[mill[1]] == playerCode && cells[mill[2]] == playerCode;
+    }
+
+    // bit i set when point i holds playerCode (EMPTY gives the empty-point mask)
+    public int occupancyMask(int playerCode) {
+        if (playerCode == Constants.HUMAN) return humanMask;
+        if (playerCode == Constants.CPU) return cpuMask;
+        if (playerCode == Constants.EMPTY) return ~(humanMask | cpuMask) & Constants.ALL_POINTS;
+        return 0;
+    }
+
+    // bit i set when point i is part of a closed mill of player
+    public int millPointsMask(int playerCode) {
+        int occ = occupancyMask(playerCode);
+        int inMill = 0;
+        for (int mm : Constants.MILL_MASKS) if ((occ & mm) == mm) inMill |= mm;
+        return inMill;
     }
 
     // check if any mill exists for player (current board)
     public boolean hasAnyMill(int playerCode) {
-        for (int[] mill : Constants.MILLS) {
-            boolean all = true;
-            for (int m : mill) if (cells[m] != playerCode) { all = false; break; }
-            if (all) return true;
-        }
+        int occ = occupancyMask(playerCode);
+        for (int mm : Constants.MILL_MASKS) if ((occ & mm) == mm) return true;
         return false;
     }
 
     // find candidate removal indices when a mill is formed (prefer to remove pieces not in mills)
     public List<Integer> candidateRemovals(int opponentCode) {
-        List<Integer> res = new ArrayList<>();
-        for (int i = 0; i < 24; i++) {
-            if (cells[i] == opponentCode && !isPartOfMill(i, opponentCode)) res.add(i);
-        }
-        if (res.isEmpty()) {
-            for (int i = 0; i < 24; i++) if (cells[i] == opponentCode) res.add(i);
-        }
+        int mask = removableMask(opponentCode);
+        List<Integer> res = new ArrayList<>(Integer.bitCount(mask));
+        for (int i = 0; i < 24; i++) if ((mask & (1 << i)) != 0) res.add(i);
         return res;
     }
 
-    public boolean isPartOfMill(int pos, int playerCode) {
-        for (int[] mill : Constants.MILLS) {
-            boolean contains = false;
-            for (int m : mill) if (m == pos) { contains = true; break; }
-            if (!contains) continue;
-            boolean all = true;
-            for (int m : mill) if (cells[m] != playerCode) { all = false; break; }
-            if (all) return true;
-        }
-        return false;
+    // same choice as candidateRemovals, as a point mask
+    public int removableMask(int opponentCode) {
+        int occ = occupancyMask(opponentCode);
+        int free = occ & ~millPointsMask(opponentCode);
+        return free != 0 ? free : occ;
     }
 
-    public boolean isGameOver() {
-        // game over if opponent has <=2 pieces or no moves
-        int humanPieces = countPieces(Player.HUMAN.code());
-        int cpuPieces = countPieces(Player.CPU.code());
+    public boolean isPartOfMill(int pos, int playerCode) {
+        return cells[pos] == playerCode && formsMill(playerCode, pos);
+    }
 
-        if (humanPieces <= 2 || cpuPieces <= 2) return true;
+    // game over for the side to move (see Rules)
+    public boolean isGameOver(int playerToMove) {
+        return Rules.isGameOver(this, playerToMove);
+    }
 
-        // no legal moves for someone
-        boolean humanHas = !generateLegalMoves(Player.HUMAN.code()).isEmpty();
-        boolean cpuHas = !generateLegalMoves(Player.CPU.code()).isEmpty();
-        return !(humanHas && cpuHas);
+    // game over whichever side is to move; never during placement
+    public boolean isGameOver() {
+        return Rules.isGameOver(this, Player.HUMAN.code()) || Rules.isGameOver(this, Player.CPU.code());
     }
 
     // Evaluate heuristic (higher -> better for CPU)
@@ -169,31 +308,21 @@ public class Board implements Cloneable {
         int cpuPieces = countPieces(cpuCode);
         int oppPieces = countPieces(oppCode);
         int mills = countMills(cpuCode) - countMills(oppCode);
-        int mobility = generateLegalMoves(cpuCode).size() - generateLegalMoves(oppCode).size();
+        int mobility = mobility(cpuCode) - mobility(oppCode);
 
         return (cpuPieces - oppPieces) * 10 + mills * 8 + mobility * 2;
     }
 
     public int countMills(int playerCode) {
+        int occ = occupancyMask(playerCode);
         int c = 0;
-        for (int[] mill : Constants.MILLS) {
-            boolean all = true;
-            for (int m : mill) if (cells[m] != playerCode) { all = false; break; }
-            if (all) c++;
-        }
+        for (int mm : Constants.MILL_MASKS) if ((occ & mm) == mm) c++;
         return c;
     }
-    public int[] getMillIndices(int player, int pos) {
-        for (int[] mill : Constants.MILLS) {
-            boolean contains = false;
-            for (int x : mill) if (x == pos) contains = true;
-
-            if (!contains) continue;
 
-            boolean full = true;
-            for (int x : mill) if (cells[x] != player) full = false;
-
-            if (full) return mill;
+    public int[] getMillIndices(int player, int pos) {
+        for (int m : Constants.POINT_MILLS[pos]) {
+            if (isMill(m, player)) return Constants.MILLS[m];
         }
         return null;
     }
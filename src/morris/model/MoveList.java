@@ -0,0 +1,132 @@
+package morris.model;
+
+/**
+ * Growable list of int-packed moves with an int score per entry, meant to be
+ * reused (cleared) instead of reallocated during search.
+ *
+ * Packed move layout (15 bits):
+ * - bits  0..4  : to
+ * - bits  5..9  : from + 1 (0 = placement)
+ * - bits 10..14 : removed + 1 (0 = no capture)
+ */
+public final class MoveList {
+
+    public static final int NONE = -1;
+
+    private int[] moves;
+    private int[] scores;
+    private int size;
+
+    public MoveList() {
+        this(64); // flying with 3 pieces gives at most 3 * 21 moves
+    }
+
+    public MoveList(int initialCapacity) {
+        moves = new int[Math.max(4, initialCapacity)];
+        scores = new int[moves.length];
+    }
+
+    // ------------------------ Packing ------------------------
+
+    public static int pack(int from, int to, int removed) {
+        return ((removed + 1) << 10) | ((from + 1) << 5) | to;
+    }
+
+    public static int from(int move) { return ((move >>> 5) & 31) - 1; }
+    public static int to(int move) { return move & 31; }
+    public static int removed(int move) { return ((move >>> 10) & 31) - 1; }
+    public static boolean isPlacement(int move) { return ((move >>> 5) & 31) == 0; }
+
+    // same move with the capture replaced
+    public static int withRemoval(int move, int removed) {
+        return (move & 0x3FF) | ((removed + 1) << 10);
+    }
+
+    // same move without its capture
+    public static int base(int move) {
+        return move & 0x3FF;
+    }
+
+    public static int fromMove(Move m) {
+        return pack(m.from, m.to, m.removed);
+    }
+
+    public static Move toMove(int move) {
+        return new Move(from(move), to(move), removed(move));
+    }
+
+    // ------------------------ List ------------------------
+
+    public void add(int move) {
+        add(move, 0);
+    }
+
+    public void add(int move, int score) {
+        if (size == moves.length) grow();
+        moves[size] = move;
+        scores[size] = score;
+        size++;
+    }
+
+    public int get(int i) { return moves[i]; }
+    public int score(int i) { return scores[i]; }
+    public void setScore(int i, int score) { scores[i] = score; }
+    public void setMove(int i, int move) { moves[i] = move; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public void clear() { size = 0; }
+
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) if (moves[i] == move) return i;
+        return -1;
+    }
+
+    // move entry i to the front, keeping the order of the others
+    public void moveToFront(int i) {
+        int m = moves[i];
+        int s = scores[i];
+        System.arraycopy(moves, 0, moves, 1, i);
+        System.arraycopy(scores, 0, scores, 1, i);
+        moves[0] = m;
+        scores[0] = s;
+    }
+
+    // stable insertion sort, lists are short (<= 64 entries)
+    public void sortByScore(boolean descending) {
+        for (int i = 1; i < size; i++) {
+            int m = moves[i];
+            int s = scores[i];
+            int j = i - 1;
+            while (j >= 0 && (descending ? scores[j] < s : scores[j] > s)) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = m;
+            scores[j + 1] = s;
+        }
+    }
+
+    public void addAll(MoveList other) {
+        for (int i = 0; i < other.size; i++) add(other.moves[i], other.scores[i]);
+    }
+
+    private void grow() {
+        int[] nm = new int[moves.length * 2];
+        int[] ns = new int[moves.length * 2];
+        System.arraycopy(moves, 0, nm, 0, size);
+        System.arraycopy(scores, 0, ns, 0, size);
+        moves = nm;
+        scores = ns;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(toMove(moves[i])).append('=').append(scores[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,190 @@
+package morris.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import morris.util.Constants;
+
+/**
+ * Packed position encoding for Board.
+ *
+ * Key layout (58 bits used, always non-negative):
+ * - bits  0..47 : 2 bits per cell, cell i at bit 2*i (0 = empty, 1 = human, 2 = cpu)
+ * - bits 48..51 : pieces placed by human (0..9)
+ * - bits 52..55 : pieces placed by cpu (0..9)
+ * - bits 56..57 : phase (0 = placement, 1 = movement)
+ *
+ * Text form is FEN-like: the seven board rows (3/3/3/6/3/3/3 points, top to bottom)
+ * separated by '/', 'H' for human, 'C' for cpu and a digit for a run of empty points,
+ * followed by human placed, cpu placed and phase ('P' or 'M'):
+ *   empty board -> "3/3/3/6/3/3/3 0 0 P"
+ */
+public final class PositionCodec {
+
+    public static final int CELL_BITS = 2;
+    public static final int HUMAN_PLACED_SHIFT = 48;
+    public static final int CPU_PLACED_SHIFT = 52;
+    public static final int PHASE_SHIFT = 56;
+    public static final long CELLS_MASK = (1L << 48) - 1;
+
+    // row lengths of the board layout, indices are contiguous per row
+    private static final int[] ROW_SIZES = {3, 3, 3, 6, 3, 3, 3};
+
+    private PositionCodec() {}
+
+    public static long encode(Board b) {
+        int[] cells = b.getCells();
+        long key = 0;
+        for (int i = 23; i >= 0; i--) key = (key << CELL_BITS) | cells[i];
+        key |= (long) b.getPlacedCount(Player.HUMAN.code()) << HUMAN_PLACED_SHIFT;
+        key |= (long) b.getPlacedCount(Player.CPU.code()) << CPU_PLACED_SHIFT;
+        key |= (long) b.getPhase() << PHASE_SHIFT;
+        return key;
+    }
+
+    public static Board decode(long key) {
+        Board b = new Board();
+        decodeInto(key, b);
+        return b;
+    }
+
+    // overwrite 'target' with the position in 'key' (no allocation)
+    public static void decodeInto(long key, Board target) {
+        int[] cells = target.getCells();
+        long bits = key;
+        for (int i = 0; i < 24; i++) {
+            cells[i] = (int) (bits & 3);
+            bits >>>= CELL_BITS;
+        }
+        target.setCounters(humanPlaced(key), cpuPlaced(key), phase(key));
+    }
+
+    public static int cellAt(long key, int idx) {
+        return (int) ((key >>> (idx * CELL_BITS)) & 3);
+    }
+
+    public static int humanPlaced(long key) { return (int) ((key >>> HUMAN_PLACED_SHIFT) & 0xF); }
+    public static int cpuPlaced(long key) { return (int) ((key >>> CPU_PLACED_SHIFT) & 0xF); }
+    public static int phase(long key) { return (int) ((key >>> PHASE_SHIFT) & 3); }
+
+    // true if key could have been produced by encode()
+    public static boolean isValid(long key) {
+        if ((key >>> (PHASE_SHIFT + 2)) != 0) return false;
+        for (int i = 0; i < 24; i++) if (cellAt(key, i) == 3) return false;
+        return humanPlaced(key) <= 9 && cpuPlaced(key) <= 9 && phase(key) <= 1;
+    }
+
+    // ------------------------ Text form ------------------------
+
+    public static String toText(Board b) {
+        return keyToText(encode(b));
+    }
+
+    public static String keyToText(long key) {
+        StringBuilder sb = new StringBuilder(32);
+        int idx = 0;
+        for (int r = 0; r < ROW_SIZES.length; r++) {
+            if (r > 0) sb.append('/');
+            int empty = 0;
+            for (int k = 0; k < ROW_SIZES[r]; k++, idx++) {
+                int v = cellAt(key, idx);
+                if (v == Constants.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(v == Constants.HUMAN ? 'H' : 'C');
+            }
+            if (empty > 0) sb.append(empty);
+        }
+        sb.append(' ').append(humanPlaced(key))
+                .append(' ').append(cpuPlaced(key))
+                .append(' ').append(phase(key) == 0 ? 'P' : 'M');
+        return sb.toString();
+    }
+
+    public static Board fromText(String text) {
+        return decode(textToKey(text));
+    }
+
+    public static long textToKey(String text) {
+        if (text == null) throw new IllegalArgumentException("position text is null");
+        String[] parts = text.trim().split("\\s+");
+        if (parts.length != 4) throw new IllegalArgumentException("expected 4 fields: " + text);
+
+        String[] rows = parts[0].split("/", -1);
+        if (rows.length != ROW_SIZES.length) throw new IllegalArgumentException("expected 7 rows: " + text);
+
+        long key = 0;
+        int idx = 0;
+        for (int r = 0; r < rows.length; r++) {
+            int rowEnd = idx + ROW_SIZES[r];
+            for (char ch : rows[r].toCharArray()) {
+                if (ch >= '1' && ch <= '6') {
+                    idx += ch - '0';
+                } else if (ch == 'H' || ch == 'C') {
+                    if (idx >= rowEnd) throw new IllegalArgumentException("row " + (r + 1) + " too long: " + text);
+                    int v = (ch == 'H') ? Constants.HUMAN : Constants.CPU;
+                    key |= (long) v << (idx * CELL_BITS);
+                    idx++;
+                } else {
+                    throw new IllegalArgumentException("bad character '" + ch + "' in: " + text);
+                }
+            }
+            if (idx != rowEnd) throw new IllegalArgumentException("row " + (r + 1) + " has wrong length: " + text);
+        }
+
+        int hp = parseCount(parts[1], text);
+        int cp = parseCount(parts[2], text);
+        int ph;
+        if (parts[3].equals("P")) ph = 0;
+        else if (parts[3].equals("M")) ph = 1;
+        else throw new IllegalArgumentException("phase must be P or M: " + text);
+
+        return key
+                | (long) hp << HUMAN_PLACED_SHIFT
+                | (long) cp << CPU_PLACED_SHIFT
+                | (long) ph << PHASE_SHIFT;
+    }
+
+    private static int parseCount(String s, String text) {
+        try {
+            int v = Integer.parseInt(s);
+            if (v >= 0 && v <= 9) return v;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("placed count must be 0-9: " + text);
+    }
+
+    // ------------------------ Bulk conversion ------------------------
+
+    public static long[] encodeAll(List<Board> boards) {
+        long[] keys = new long[boards.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = encode(boards.get(i));
+        return keys;
+    }
+
+    public static void encodeAll(Board[] boards, int count, long[] out) {
+        for (int i = 0; i < count; i++) out[i] = encode(boards[i]);
+    }
+
+    public static List<Board> decodeAll(long[] keys) {
+        List<Board> boards = new ArrayList<>(keys.length);
+        for (long key : keys) boards.add(decode(key));
+        return boards;
+    }
+
+    public static List<String> toTextAll(long[] keys) {
+        List<String> texts = new ArrayList<>(keys.length);
+        for (long key : keys) texts.add(keyToText(key));
+        return texts;
+    }
+
+    public static long[] fromTextAll(List<String> texts) {
+        long[] keys = new long[texts.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = textToKey(texts.get(i));
+        return keys;
+    }
+}
@@ -0,0 +1,156 @@
+package morris.model;
+
+import morris.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Positions of a game (and, during a search, of the current line) for the two
+ * draw rules:
+ * - threefold repetition: the same pieces with the same side to move for the
+ *   third time
+ * - no capture: noCaptureLimit plies in a row without a placement or capture
+ *
+ * Placements and captures cannot be undone, so a position can only repeat one
+ * reached after the last of them; each entry stores how many plies back that
+ * was and the repetition scan stops there. A small table of per-hash entry
+ * counts answers "not repeated" without any scan in almost every position, so
+ * checks are O(1) amortized and push/pop are O(1).
+ *
+ * Usage: push the start position, then push the position after every
+ * complete move (capture included) with the side to move next; pop undoes the
+ * last push.
+ */
+public final class PositionHistory {
+
+    // 50 moves per side
+    public static final int DEFAULT_NO_CAPTURE_LIMIT = 100;
+
+    private static final int FILTER_BITS = 12;
+
+    private long[] keys = new long[128];
+    private int[] material = new int[128];   // placed total and pieces on board, see materialOf
+    private int[] reversible = new int[128]; // plies since the last placement or capture
+    private final int[] filter = new int[1 << FILTER_BITS];
+    private int size;
+    private int noCaptureLimit = DEFAULT_NO_CAPTURE_LIMIT;
+
+    public int getNoCaptureLimit() { return noCaptureLimit; }
+    public void setNoCaptureLimit(int plies) { this.noCaptureLimit = Math.max(1, plies); }
+
+    public int size() { return size; }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) filter[slot(keys[i])]--;
+        size = 0;
+    }
+
+    public void copyFrom(PositionHistory other) {
+        clear();
+        ensure(other.size);
+        System.arraycopy(other.keys, 0, keys, 0, other.size);
+        System.arraycopy(other.material, 0, material, 0, other.size);
+        System.arraycopy(other.reversible, 0, reversible, 0, other.size);
+        size = other.size;
+        for (int i = 0; i < size; i++) filter[slot(keys[i])]++;
+        noCaptureLimit = other.noCaptureLimit;
+    }
+
+    // pieces of both sides plus the side to move; only compared within one reversible stretch
+    public static long key(Board board, int sideToMove) {
+        return key(board.occupancyMask(Constants.HUMAN), board.occupancyMask(Constants.CPU), sideToMove);
+    }
+
+    public static long key(int humanMask, int cpuMask, int sideToMove) {
+        return (long) humanMask | (long) cpuMask << 24 | (long) sideToMove << 48;
+    }
+
+    private static int materialOf(Board board) {
+        int placed = board.getPlacedCount(Constants.HUMAN) + board.getPlacedCount(Constants.CPU);
+        int pieces = Integer.bitCount(board.occupancyMask(Constants.HUMAN) | board.occupancyMask(Constants.CPU));
+        return placed << 5 | pieces;
+    }
+
+    // records 'board' with sideToMove to play; a change of placed or board pieces since the
+    // previous entry marks a placement or capture
+    public void push(Board board, int sideToMove) {
+        int mat = materialOf(board);
+        boolean irreversible = size == 0 || material[size - 1] != mat;
+        ensure(size + 1);
+        long key = key(board, sideToMove);
+        keys[size] = key;
+        material[size] = mat;
+        reversible[size] = irreversible ? 0 : reversible[size - 1] + 1;
+        filter[slot(key)]++;
+        size++;
+    }
+
+    public void pop() {
+        size--;
+        filter[slot(keys[size])]--;
+    }
+
+    public long topKey() {
+        return keys[size - 1];
+    }
+
+    // plies since the last placement or capture
+    public int reversiblePlies() {
+        return size == 0 ? 0 : reversible[size - 1];
+    }
+
+    // how often the last pushed position has occurred, itself included
+    public int repetitions() {
+        if (size == 0) return 0;
+        long key = keys[size - 1];
+        if (filter[slot(key)] < 2) return 1;
+        int count = 1;
+        int stop = size - 1 - reversible[size - 1];
+        for (int i = size - 3; i >= stop; i -= 2) {
+            if (keys[i] == key) count++;
+        }
+        return count;
+    }
+
+    // true if 'key' occurred since the last placement or capture (a non-capture move to it repeats)
+    public boolean contains(long key) {
+        if (size == 0 || filter[slot(key)] == 0) return false;
+        int stop = size - 1 - reversible[size - 1];
+        for (int i = size - 1; i >= stop; i--) {
+            if (keys[i] == key) return true;
+        }
+        return false;
+    }
+
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 3;
+    }
+
+    public boolean isNoCaptureDraw() {
+        return reversiblePlies() >= noCaptureLimit;
+    }
+
+    public boolean isDraw() {
+        return isThreefoldRepetition() || isNoCaptureDraw();
+    }
+
+    // short reason for a drawn position, or null
+    public String drawReason() {
+        if (isThreefoldRepetition()) return "threefold repetition";
+        if (isNoCaptureDraw()) return (noCaptureLimit / 2) + " moves without a capture";
+        return null;
+    }
+
+    private static int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> (64 - FILTER_BITS));
+    }
+
+    private void ensure(int n) {
+        if (keys.length >= n) return;
+        int cap = Math.max(n, keys.length * 2);
+        keys = Arrays.copyOf(keys, cap);
+        material = Arrays.copyOf(material, cap);
+        reversible = Arrays.copyOf(reversible, cap);
+    }
+}
@@ -0,0 +1,127 @@
+package morris.model;
+
+import morris.util.BitGraph;
+import morris.util.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Game rules shared by the GUI session, the console game and the strategies.
+ *
+ * A complete move is a placement or movement plus, when it closes a mill, the
+ * opponent piece it removes (Move.removed / MoveList.removed). Removals follow
+ * Board.removableMask: pieces outside mills first, any piece if all are in mills.
+ *
+ * The game is over, with the player to move losing, once placement is finished
+ * and that player has two pieces or fewer or cannot move. During placement the
+ * game never ends (there is always an empty point).
+ */
+public final class Rules {
+
+    // winner() result while the game goes on
+    public static final int ONGOING = Constants.EMPTY;
+
+    private Rules() {}
+
+    // ========================= MOVES =========================
+
+    /**
+     * Fills 'out' with every complete move of playerCode and returns the winner
+     * code when the player to move has already lost, ONGOING otherwise; move
+     * generation and terminal detection share the same pass.
+     */
+    public static int completeMoves(Board board, int playerCode, MoveList out) {
+        out.clear();
+        if (!board.isPlacementPhase() && board.countPieces(playerCode) <= 2) return opponentOf(playerCode);
+
+        int opponent = opponentOf(playerCode);
+        int removable = board.removableMask(opponent);
+        board.generateLegalMoves(playerCode, out);
+        int n = out.size();
+        for (int i = 0; i < n; i++) {
+            int move = out.get(i);
+            if (!closesMill(board, move, playerCode) || removable == 0) continue;
+            // first capture replaces the plain move, the others are appended
+            boolean first = true;
+            for (int rem = 0; rem < 24; rem++) {
+                if ((removable & (1 << rem)) == 0) continue;
+                int capture = MoveList.withRemoval(move, rem);
+                if (first) {
+                    out.setMove(i, capture);
+                    first = false;
+                } else {
+                    out.add(capture);
+                }
+            }
+        }
+        return out.isEmpty() ? opponent : ONGOING;
+    }
+
+    public static List<Move> completeMoves(Board board, int playerCode) {
+        MoveList packed = new MoveList();
+        completeMoves(board, playerCode, packed);
+        List<Move> moves = new ArrayList<>(packed.size());
+        for (int i = 0; i < packed.size(); i++) moves.add(MoveList.toMove(packed.get(i)));
+        return moves;
+    }
+
+    // true if playing the (removal-free part of the) move gives playerCode a mill on its destination
+    public static boolean closesMill(Board board, int move, int playerCode) {
+        int to = MoveList.to(move);
+        int from = MoveList.from(move);
+        int own = board.occupancyMask(playerCode);
+        if (from != -1) own &= ~(1 << from);
+        own |= 1 << to;
+        for (int m : Constants.POINT_MILLS[to]) {
+            int mm = Constants.MILL_MASKS[m];
+            if ((own & mm) == mm) return true;
+        }
+        return false;
+    }
+
+    public static boolean closesMill(Board board, Move m, int playerCode) {
+        return closesMill(board, MoveList.pack(m.from, m.to, -1), playerCode);
+    }
+
+    /**
+     * The move as it will be played: a removal the strategy picked is kept when it
+     * is legal, a mill without one gets the first removable piece, and a removal
+     * on a move that closes no mill is dropped.
+     */
+    public static Move complete(Board board, Move m, int playerCode) {
+        if (m == null) return null;
+        if (!closesMill(board, m, playerCode)) {
+            return m.removed == -1 ? m : new Move(m.from, m.to, -1);
+        }
+        int removable = board.removableMask(opponentOf(playerCode));
+        if (removable == 0) return m.removed == -1 ? m : new Move(m.from, m.to, -1);
+        if (m.removed >= 0 && m.removed < 24 && (removable & (1 << m.removed)) != 0) return m;
+        return new Move(m.from, m.to, Integer.numberOfTrailingZeros(removable));
+    }
+
+    // ========================= STATUS =========================
+
+    /** Winner code if playerToMove has lost, ONGOING otherwise. */
+    public static int winner(Board board, int playerToMove) {
+        if (board.isPlacementPhase()) return ONGOING;
+        int own = board.occupancyMask(playerToMove);
+        int pieces = Integer.bitCount(own);
+        if (pieces <= 2) return opponentOf(playerToMove);
+        return hasMobility(board, own, pieces) ? ONGOING : opponentOf(playerToMove);
+    }
+
+    public static boolean isGameOver(Board board, int playerToMove) {
+        return winner(board, playerToMove) != ONGOING;
+    }
+
+    private static boolean hasMobility(Board board, int own, int pieces) {
+        int empty = board.occupancyMask(Constants.EMPTY);
+        if (pieces == 3) return empty != 0;
+        return BitGraph.movable(own, empty) != 0;
+    }
+
+    public static int opponentOf(int playerCode) {
+        return playerCode == Player.HUMAN.code() ? Player.CPU.code() : Player.HUMAN.code();
+    }
+}
@@ -0,0 +1,93 @@
+package morris.model;
+
+import morris.util.Constants;
+
+/**
+ * Mill threats of both players in one position, from the occupancy of the 16
+ * mills instead of trying every move on a board copy.
+ *
+ * A mill with two pieces of a player and an empty third point is open for that
+ * player at the empty point. The player threatens to close it with the next
+ * move when a piece can get there:
+ * - placement: any empty point can be placed on
+ * - flying (three pieces after placement): the piece outside the mill
+ * - sliding: a piece on a neighbouring point that is not one of the mill's
+ *   own two points (it would leave the mill it is closing)
+ *
+ * These are exactly the destinations of the player's legal moves after which
+ * Board.formsMill holds at the destination.
+ */
+public final class ThreatMap {
+
+    // indexed by player code
+    private final int[] open = new int[3];
+    private final int[] targets = new int[3];
+    private final int[] attackers = new int[3];
+
+    private ThreatMap(Board board) {
+        scan(board, Constants.HUMAN, this);
+        scan(board, Constants.CPU, this);
+    }
+
+    public static ThreatMap of(Board board) {
+        return new ThreatMap(board);
+    }
+
+    // points where playerCode closes a mill with its next move (no allocation)
+    public static int millTargets(Board board, int playerCode) {
+        return scan(board, playerCode, null);
+    }
+
+    // one pass over the mills for playerCode; returns its targets and, with 'into', records everything
+    private static int scan(Board board, int playerCode, ThreatMap into) {
+        int own = board.occupancyMask(playerCode);
+        int empty = board.occupancyMask(Constants.EMPTY);
+        boolean placing = board.isPlacementPhase();
+        boolean flying = !placing && Integer.bitCount(own) == 3;
+        int open = 0, targets = 0, attackers = 0;
+        for (int mm : Constants.MILL_MASKS) {
+            int free = mm & empty;
+            // exactly one empty point and the other two ours
+            if (Integer.bitCount(free) != 1 || (own & mm) != (mm & ~free)) continue;
+            open |= free;
+            if (placing) {
+                targets |= free;
+                continue;
+            }
+            int outside = own & ~mm;
+            int from = flying ? outside : outside & Constants.ADJ_MASKS[Integer.numberOfTrailingZeros(free)];
+            if (from != 0) targets |= free;
+            attackers |= from;
+        }
+        if (into != null) {
+            into.open[playerCode] = open;
+            into.targets[playerCode] = targets;
+            into.attackers[playerCode] = attackers;
+        }
+        return targets;
+    }
+
+    // empty third points of playerCode's two-piece mills, reachable or not
+    public int openPoints(int playerCode) {
+        return open[playerCode];
+    }
+
+    // points where playerCode closes a mill with its next move
+    public int targets(int playerCode) {
+        return targets[playerCode];
+    }
+
+    // pieces of playerCode that can move onto one of its targets and close a mill (0 while placing)
+    public int attackers(int playerCode) {
+        return attackers[playerCode];
+    }
+
+    public boolean hasThreat(int playerCode) {
+        return targets(playerCode) != 0;
+    }
+
+    // true if a move to 'point' takes one of playerCode's closing points away
+    public boolean blocks(int point, int playerCode) {
+        return (targets(playerCode) & (1 << point)) != 0;
+    }
+}
@@ -0,0 +1,132 @@
+package morris.tools;
+
+import morris.ai.AnalysisLine;
+import morris.ai.BacktrackingStrategy;
+import morris.model.Board;
+import morris.model.Player;
+import morris.model.PositionCodec;
+import morris.tuning.ShardReader;
+import morris.tuning.ShardWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch multi-PV analysis: the top K moves with scores and principal
+ * variations for every input position, one BacktrackingStrategy.analyze call
+ * per position.
+ *
+ * Input is a text file with one position per line in PositionCodec text form,
+ * optionally followed by the side to move (H or C, default --side), or a
+ * SelfPlayPipeline directory (side to move from each record). Lines starting
+ * with '#' are skipped.
+ *
+ * Output, tab separated on stdout: position, side, rank, move, score, line.
+ *
+ * Usage:
+ *   AnalyzePositions [--k 3] [--side C] [--limit N] input...
+ */
+public class AnalyzePositions {
+
+    private final BacktrackingStrategy engine = new BacktrackingStrategy();
+    private final int k;
+    private final PrintStream out;
+    private long positions, lines, nodes, nanos;
+
+    public AnalyzePositions(int k, PrintStream out) {
+        this.k = k;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int k = 3;
+        long limit = Long.MAX_VALUE;
+        Player side = Player.CPU;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--k": k = Integer.parseInt(args[++i]); break;
+                case "--limit": limit = Long.parseLong(args[++i]); break;
+                case "--side": side = parseSide(args[++i]); break;
+                default: inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("usage: AnalyzePositions [--k 3] [--side C] [--limit N] positions.txt|selfplay-dir...");
+            System.exit(2);
+        }
+
+        AnalyzePositions tool = new AnalyzePositions(k, System.out);
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) tool.analyzeShards(path, limit);
+            else tool.analyzeText(path, side, limit);
+        }
+        System.out.flush();
+        System.err.print(tool.summary());
+    }
+
+    public void analyzeText(Path file, Player defaultSide, long limit) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String raw; positions < limit && (raw = in.readLine()) != null; ) {
+                String line = raw.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                Player side = defaultSide;
+                if (parts.length == 5) {
+                    side = parseSide(parts[4]);
+                    line = String.join(" ", parts[0], parts[1], parts[2], parts[3]);
+                }
+                analyze(PositionCodec.fromText(line), side);
+            }
+        }
+    }
+
+    public void analyzeShards(Path dir, long limit) throws IOException {
+        Board board = new Board();
+        ShardReader.read(dir, (key, score, result, flags, ply) -> {
+            if (positions >= limit) return;
+            PositionCodec.decodeInto(key, board);
+            analyze(board, (flags & ShardWriter.FLAG_CPU_TO_MOVE) != 0 ? Player.CPU : Player.HUMAN);
+        });
+    }
+
+    public void analyze(Board board, Player side) {
+        Player other = side == Player.CPU ? Player.HUMAN : Player.CPU;
+        long t0 = System.nanoTime();
+        List<AnalysisLine> result = engine.analyze(board, side, other, k);
+        nanos += System.nanoTime() - t0;
+        nodes += engine.getLastStats().getNodes();
+        positions++;
+
+        String text = PositionCodec.toText(board);
+        String sideName = side == Player.CPU ? "C" : "H";
+        for (int i = 0; i < result.size(); i++) {
+            AnalysisLine line = result.get(i);
+            out.println(text + '\t' + sideName + '\t' + (i + 1) + '\t' + AnalysisLine.describe(line.move)
+                    + '\t' + line.score + '\t' + line.pvText());
+            lines++;
+        }
+    }
+
+    public String summary() {
+        return String.format("positions=%d lines=%d nodes=%d search=%.1f ms (%.2f ms/position, %.0f nodes/s)%n",
+                positions, lines, nodes, nanos / 1e6, nanos / 1e6 / Math.max(1, positions),
+                nodes * 1e9 / Math.max(1, nanos));
+    }
+
+    private static Player parseSide(String s) {
+        switch (s.toUpperCase()) {
+            case "C": case "CPU": return Player.CPU;
+            case "H": case "HUMAN": return Player.HUMAN;
+            default: throw new IllegalArgumentException("side must be H or C: " + s);
+        }
+    }
+}
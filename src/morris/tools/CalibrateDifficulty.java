@@ -0,0 +1,134 @@
+package morris.tools;
+
+import morris.ai.BacktrackingStrategy;
+import morris.ai.CpuStrategy;
+import morris.ai.Difficulty;
+import morris.ai.SearchStats;
+import morris.metrics.LatencyHistogram;
+import morris.model.Move;
+import morris.model.Player;
+import morris.model.Rules;
+import morris.tuning.SelfPlayGame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures every Difficulty level against one reference opponent: strength as
+ * the score and the Elo difference it implies, cost as wall and CPU time,
+ * nodes and completed depth per move of the level. Games come in pairs from
+ * the same random opening with colours swapped, played by SelfPlayGame, and
+ * end on a win, a PositionHistory draw or the ply limit (scored as a draw).
+ *
+ * Usage:
+ *   CalibrateDifficulty [--games 40] [--reference hard] [--levels beginner,easy,...]
+ *                       [--opening 4] [--max-plies 200] [--seed 1]
+ *
+ * The moves/s per core column is 1000 / mean CPU ms, for capacity planning.
+ */
+public class CalibrateDifficulty {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String reference;
+    private final int openingPlies;
+    private final int maxPlies;
+
+    // per level run
+    private int wins, draws, losses;
+    private long moves, nodes, depthSum, cpuNanos;
+    private LatencyHistogram latency;
+
+    public CalibrateDifficulty(String reference, int openingPlies, int maxPlies) {
+        this.reference = reference;
+        this.openingPlies = openingPlies;
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) {
+        int games = 40, opening = 4, maxPlies = 200;
+        long seed = 1;
+        String reference = "hard";
+        List<Difficulty> levels = new ArrayList<>(List.of(Difficulty.values()));
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--reference": reference = args[++i]; break;
+                case "--opening": opening = Integer.parseInt(args[++i]); break;
+                case "--max-plies": maxPlies = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--levels":
+                    levels.clear();
+                    for (String name : args[++i].split(",")) {
+                        Difficulty d = Difficulty.of(name.trim());
+                        if (d == null) throw new IllegalArgumentException("Unknown level: " + name);
+                        levels.add(d);
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        CalibrateDifficulty tool = new CalibrateDifficulty(reference, opening, maxPlies);
+        System.out.printf("reference=%s games=%d opening=%d max-plies=%d seed=%d%n",
+                reference, games, opening, maxPlies, seed);
+        System.out.printf("%-9s %5s %5s %5s %7s %6s | %8s %8s %8s %8s %9s %6s %10s%n",
+                "level", "win", "draw", "loss", "score", "elo",
+                "mean ms", "p90 ms", "max ms", "cpu ms", "nodes", "depth", "moves/s/c");
+        for (Difficulty level : levels) {
+            System.out.println(tool.run(level, games, seed));
+        }
+    }
+
+    public String run(Difficulty level, int games, long seed) {
+        wins = draws = losses = 0;
+        moves = nodes = depthSum = cpuNanos = 0;
+        latency = new LatencyHistogram();
+        BacktrackingStrategy engine = level.newStrategy();
+        engine.setSeed(seed);
+        CpuStrategy opponent = ReplayHarness.strategy(reference);
+        for (int g = 0; g < games; g++) {
+            // the same opening twice, the level taking each colour once
+            Player levelSide = g % 2 == 0 ? Player.CPU : Player.HUMAN;
+            playGame(engine, opponent, levelSide, new Random(seed + g / 2));
+        }
+
+        double score = (wins + 0.5 * draws) / Math.max(1, games);
+        double clamped = Math.min(Math.max(score, 0.005), 0.995);
+        double elo = -400 * Math.log10(1 / clamped - 1);
+        double cpuMs = cpuNanos / 1e6 / Math.max(1, moves);
+        return String.format("%-9s %5d %5d %5d %6.1f%% %+6.0f | %8.2f %8.2f %8.2f %8.2f %9d %6.2f %10.0f",
+                level.label, wins, draws, losses, score * 100, elo,
+                latency.sumNanos() / 1e6 / Math.max(1, latency.count()), latency.percentileNanos(0.9) / 1e6,
+                latency.maxNanos() / 1e6, cpuMs, nodes / Math.max(1, moves),
+                (double) depthSum / Math.max(1, moves), 1000 / Math.max(1e-6, cpuMs));
+    }
+
+    private void playGame(CpuStrategy engine, CpuStrategy opponent, Player levelSide, Random rnd) {
+        CpuStrategy cpu = levelSide == Player.CPU ? engine : opponent;
+        CpuStrategy human = levelSide == Player.CPU ? opponent : engine;
+        int winner = SelfPlayGame.play(cpu, human, openingPlies, maxPlies, rnd, (board, mover, other, ply) -> {
+            if (mover != levelSide) return Rules.complete(board, opponent.getBestMove(board, mover, other), mover.code());
+            long cpu0 = THREADS.getCurrentThreadCpuTime();
+            long t0 = System.nanoTime();
+            Move m = Rules.complete(board, engine.getBestMove(board, mover, other), mover.code());
+            latency.record(System.nanoTime() - t0);
+            cpuNanos += THREADS.getCurrentThreadCpuTime() - cpu0;
+            SearchStats stats = engine.getLastStats();
+            nodes += stats.getNodes();
+            depthSum += stats.getDepth();
+            moves++;
+            return m;
+        });
+
+        if (winner == levelSide.code()) wins++;
+        else if (winner == Rules.ONGOING) draws++;
+        else losses++;
+    }
+}
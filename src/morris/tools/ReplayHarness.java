@@ -0,0 +1,249 @@
+package morris.tools;
+
+import morris.ai.BacktrackingStrategy;
+import morris.ai.CpuStrategy;
+import morris.ai.Difficulty;
+import morris.ai.DivideAndConquerStrategy;
+import morris.ai.DpStrategy;
+import morris.ai.GreedyStrategy;
+import morris.ai.MctsStrategy;
+import morris.controller.GameSession;
+import morris.metrics.LatencyHistogram;
+import morris.model.Board;
+import morris.model.Move;
+import morris.model.Player;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Drives GameSession headlessly at full speed and reports per-turn latency of
+ * the logic path (human click handling, CPU search, mill resolution).
+ *
+ * Click streams are plain text, one event per line:
+ *   game        start a new game
+ *   click 7     human clicks point 7 (1-based, as in the console UI)
+ *   # ...       comment
+ *
+ * Usage:
+ *   ReplayHarness [--cpu dp] [--repeat 1] stream.txt...
+ *   ReplayHarness [--cpu dp] --generate 20 [--human greedy] [--noise 0.2] [--seed 1]
+ *                 [--max-turns 200] [--record out.txt]
+ *
+ * A recorded stream only replays move for move against a deterministic CPU;
+ * DP is time-limited, so its replies may differ and later clicks get rejected
+ * (reported as "ignored").
+ */
+public class ReplayHarness {
+
+    private final String cpuName;
+    private final LatencyHistogram turnLatency = new LatencyHistogram();
+    private final LatencyHistogram clickLatency = new LatencyHistogram();
+
+    private GameSession session;
+    private long turnNanos;
+    private int games, humanWins, cpuWins, draws, unfinished, ignored;
+
+    public ReplayHarness(String cpuName) {
+        this.cpuName = cpuName;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String cpu = "dp";
+        String human = "greedy";
+        int repeat = 1, generate = 0, maxTurns = 200;
+        double noise = 0.2;
+        long seed = 1;
+        String record = null;
+        List<String> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--cpu": cpu = args[++i]; break;
+                case "--human": human = args[++i]; break;
+                case "--repeat": repeat = Integer.parseInt(args[++i]); break;
+                case "--generate": generate = Integer.parseInt(args[++i]); break;
+                case "--max-turns": maxTurns = Integer.parseInt(args[++i]); break;
+                case "--noise": noise = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--record": record = args[++i]; break;
+                default: files.add(args[i]);
+            }
+        }
+        if (generate == 0 && files.isEmpty()) {
+            System.err.println("usage: ReplayHarness [--cpu NAME] [--repeat N] stream.txt...");
+            System.err.println("       ReplayHarness [--cpu NAME] --generate GAMES [--human NAME] [--noise P] [--seed S] [--max-turns N] [--record FILE]");
+            System.exit(2);
+        }
+
+        ReplayHarness harness = new ReplayHarness(cpu);
+        long start = System.nanoTime();
+        if (generate > 0) {
+            List<String> stream = harness.generate(generate, strategy(human), noise, new Random(seed), maxTurns);
+            if (record != null) {
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(record), StandardCharsets.UTF_8))) {
+                    out.println("# cpu=" + cpu + " human=" + human + " noise=" + noise + " seed=" + seed);
+                    for (String line : stream) out.println(line);
+                }
+            }
+        } else {
+            List<String> stream = new ArrayList<>();
+            for (String f : files) stream.addAll(Files.readAllLines(Paths.get(f), StandardCharsets.UTF_8));
+            for (int r = 0; r < repeat; r++) harness.replay(stream);
+        }
+        System.out.print(harness.report(System.nanoTime() - start));
+    }
+
+    // ========================= REPLAY =========================
+
+    public void replay(List<String> stream) {
+        for (String raw : stream) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            if (line.equals("game")) {
+                newGame();
+            } else if (line.startsWith("click ")) {
+                if (session == null) newGame();
+                click(Integer.parseInt(line.substring(6).trim()) - 1);
+            } else {
+                throw new IllegalArgumentException("Unknown replay event: " + line);
+            }
+        }
+        finishGame();
+    }
+
+    // ========================= GENERATE =========================
+
+    // plays games with a strategy standing in for the human and returns the clicks it made
+    public List<String> generate(int count, CpuStrategy human, double noise, Random rnd, int maxTurns) {
+        List<String> stream = new ArrayList<>();
+        for (int gi = 0; gi < count; gi++) {
+            newGame();
+            human.setGameHistory(session.getHistory());
+            stream.add("game");
+            for (int turn = 0; turn < maxTurns && !session.isGameOver(); turn++) {
+                Board board = session.getBoard();
+                Move m = chooseHumanMove(board, human, noise, rnd);
+                if (m == null) break;
+                if (m.from != -1) clickAndRecord(m.from, stream);
+                clickAndRecord(m.to, stream);
+                if (session.isWaitingForRemoval()) {
+                    List<Integer> candidates = session.getRemovalCandidates();
+                    int r = candidates.contains(m.removed) ? m.removed : candidates.get(rnd.nextInt(candidates.size()));
+                    clickAndRecord(r, stream);
+                }
+            }
+        }
+        finishGame();
+        return stream;
+    }
+
+    private Move chooseHumanMove(Board board, CpuStrategy human, double noise, Random rnd) {
+        List<Move> legal = board.generateLegalMoves(Player.HUMAN.code());
+        if (legal.isEmpty()) return null;
+        if (rnd.nextDouble() < noise) return legal.get(rnd.nextInt(legal.size()));
+        Move m = human.getBestMove(board, Player.HUMAN, Player.CPU);
+        return m != null ? m : legal.get(rnd.nextInt(legal.size()));
+    }
+
+    private void clickAndRecord(int pos, List<String> stream) {
+        stream.add("click " + (pos + 1));
+        click(pos);
+    }
+
+    // ========================= TIMING =========================
+
+    private void newGame() {
+        finishGame();
+        session = new GameSession(strategy(cpuName));
+        session.start();
+        turnNanos = 0;
+        games++;
+    }
+
+    private void finishGame() {
+        if (session == null) return;
+        if (!session.isGameOver()) unfinished++;
+        else if (session.isDraw()) draws++;
+        else if (session.isHumanWinner()) humanWins++;
+        else cpuWins++;
+        session = null;
+    }
+
+    private void click(int pos) {
+        if (session.isGameOver()) {
+            ignored++;
+            return;
+        }
+        long keyBefore = session.getBoard().positionKey();
+        int selectedBefore = session.getSelectedSource();
+        boolean removalBefore = session.isWaitingForRemoval();
+
+        long t0 = System.nanoTime();
+        session.click(pos);
+        long dt = System.nanoTime() - t0;
+
+        clickLatency.record(dt);
+        turnNanos += dt;
+        boolean moved = session.getBoard().positionKey() != keyBefore;
+        if (!moved && session.getSelectedSource() == selectedBefore && session.isWaitingForRemoval() == removalBefore
+                && !session.isGameOver()) {
+            ignored++;
+        }
+        // a turn is over once the position changed and no selection or removal is pending
+        if (session.isGameOver() || (moved && !session.isWaitingForRemoval() && session.getSelectedSource() == -1)) {
+            turnLatency.record(turnNanos);
+            turnNanos = 0;
+        }
+    }
+
+    public String report(long wallNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("cpu=%s games=%d human_wins=%d cpu_wins=%d draws=%d unfinished=%d%n",
+                cpuName, games, humanWins, cpuWins, draws, unfinished));
+        sb.append(String.format("clicks=%d ignored=%d turns=%d wall=%.1f ms (%.0f turns/s)%n",
+                clickLatency.count(), ignored, turnLatency.count(), wallNanos / 1e6,
+                turnLatency.count() / Math.max(1e-9, wallNanos / 1e9)));
+        sb.append(line("turn  ", turnLatency));
+        sb.append(line("click ", clickLatency));
+        return sb.toString();
+    }
+
+    private static String line(String label, LatencyHistogram h) {
+        if (h.count() == 0) return label + " no samples\n";
+        return String.format("%s mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f ms%n", label,
+                h.sumNanos() / 1e6 / h.count(), h.percentileNanos(0.5) / 1e6, h.percentileNanos(0.9) / 1e6,
+                h.percentileNanos(0.99) / 1e6, h.maxNanos() / 1e6);
+    }
+
+    // a strategy by name, or a Difficulty level ("easy", "hard", ...) of the backtracking engine;
+    // "-par" picks the fork-join scoring of greedy and dc
+    public static CpuStrategy strategy(String name) {
+        Difficulty level = Difficulty.of(name);
+        if (level != null) return level.newStrategy();
+        switch (name.toLowerCase()) {
+            case "greedy": return new GreedyStrategy();
+            case "greedy-par": {
+                GreedyStrategy s = new GreedyStrategy();
+                s.setParallel(true);
+                return s;
+            }
+            case "dc": case "divide": return new DivideAndConquerStrategy();
+            case "dc-par": {
+                DivideAndConquerStrategy s = new DivideAndConquerStrategy();
+                s.setParallel(true);
+                return s;
+            }
+            case "dp": return new DpStrategy();
+            case "backtracking": case "bt": return new BacktrackingStrategy();
+            case "mcts": return new MctsStrategy();
+            default: throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package morris.tools;
+
+import morris.ai.AnalysisLine;
+import morris.ai.BacktrackingStrategy;
+import morris.ai.CpuStrategy;
+import morris.ai.DivideAndConquerStrategy;
+import morris.ai.EvalWeights;
+import morris.ai.GreedyStrategy;
+import morris.ai.LinearEvaluator;
+import morris.model.Board;
+import morris.model.Move;
+import morris.model.MoveList;
+import morris.model.PositionCodec;
+import morris.model.Player;
+import morris.model.PositionHistory;
+import morris.model.Rules;
+import morris.model.ThreatMap;
+import morris.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the fast paths of the model against plain reference versions on the
+ * positions of random games:
+ * - codec: PositionCodec key and text round trips
+ * - moves: Rules.completeMoves, winner and complete against a generator that
+ *   tries every move on a board copy, and makeMove/unmakeMove restoring the key
+ * - threats: ThreatMap against trying every move of each player on a copy,
+ *   also on a flying version of each movement position (pieces taken off
+ *   until three are left)
+ * - history: PositionHistory repetition counts, no-capture plies and draws
+ *   against a scan of the whole game (with a short no-capture limit so that
+ *   captures reset it often), a twice-played four-ply cycle for threefold
+ *   repetition, and positions forced into one slot of its count filter
+ * - search: BacktrackingStrategy root scores with batched and one-by-one leaf
+ *   evaluation, with the no-capture limit falling on the leaves
+ * - parallel: GreedyStrategy and DivideAndConquerStrategy pick the same move
+ *   with and without fork-join scoring, on flying positions with 50-60 moves
+ *
+ * Prints one line per check and exits with status 1 on any mismatch, after
+ * printing the first few.
+ *
+ * Usage:
+ *   SelfCheck [--games 2000] [--max-plies 300] [--seed 1]
+ */
+public class SelfCheck {
+
+    private static final int MAX_REPORTED = 10;
+    private static final int NO_CAPTURE_LIMIT = 8;
+    private static final int PARALLEL_POSITIONS = 500;
+    // one movement position in this many gets the search check
+    private static final int SEARCH_EVERY = 8;
+
+    private final String[] names = {"codec", "moves", "threats", "history", "search", "parallel"};
+    private final long[] passed = new long[names.length];
+    private final long[] failed = new long[names.length];
+    private final MoveList scratch = new MoveList();
+
+    // the current game as PositionHistory sees it, and as plain lists
+    private final PositionHistory history = new PositionHistory();
+    private final List<Long> keys = new ArrayList<>();
+    private final List<Integer> reversible = new ArrayList<>();
+    private boolean limitReached;
+    private long resetsAfterLimit;
+
+    // depth 2, last ply batch-scored or not (an Evaluator that is no LinearEvaluator)
+    private final BacktrackingStrategy batched = new BacktrackingStrategy();
+    private final BacktrackingStrategy unbatched = new BacktrackingStrategy();
+
+    public SelfCheck() {
+        batched.setEvaluator(LinearEvaluator.backtracking(EvalWeights.global()));
+        LinearEvaluator linear = LinearEvaluator.backtracking(EvalWeights.global());
+        unbatched.setEvaluator((board, maxCode) -> linear.evaluate(board, maxCode));
+        for (BacktrackingStrategy s : new BacktrackingStrategy[] {batched, unbatched}) {
+            s.setMaxDepth(2);
+            s.setPlacementDepth(2);
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = 2000, maxPlies = 300;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--max-plies": maxPlies = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("usage: SelfCheck [--games N] [--max-plies N] [--seed S]");
+                    System.exit(2);
+            }
+        }
+
+        SelfCheck check = new SelfCheck();
+        Random rnd = new Random(seed);
+        check.checkFilterCollisions(rnd);
+        for (int g = 0; g < games; g++) check.playRandomGame(rnd, maxPlies);
+        // the no-capture limit must have been hit and then reset by a capture somewhere
+        check.record(3, check.resetsAfterLimit > 0, "no capture after the no-capture limit");
+        check.checkParallel(rnd, PARALLEL_POSITIONS);
+        System.out.print(check.report());
+        System.exit(check.totalFailed() == 0 ? 0 : 1);
+    }
+
+    // every position of one random game goes through all checks
+    public void playRandomGame(Random rnd, int maxPlies) {
+        Board board = new Board();
+        int side = Constants.HUMAN;
+        history.clear();
+        history.setNoCaptureLimit(NO_CAPTURE_LIMIT);
+        keys.clear();
+        reversible.clear();
+        limitReached = false;
+        pushHistory(board, side, true, rnd);
+        boolean cycled = false;
+        for (int ply = 0; ply < maxPlies; ply++) {
+            checkCodec(board);
+            checkThreats(board, rnd);
+            List<Move> moves = referenceMoves(board, side);
+            checkMoves(board, side, moves, rnd);
+            if (moves.isEmpty() || referenceWinner(board, side, moves) != Rules.ONGOING) break;
+            if (!cycled && !board.isPlacementPhase()) cycled = checkRepetitionCycle(board, side, moves);
+            if (!board.isPlacementPhase() && rnd.nextInt(SEARCH_EVERY) == 0) checkSearchAtLimit(board, side);
+            Move m = moves.get(rnd.nextInt(moves.size()));
+            board.applyMove(m, side);
+            side = Rules.opponentOf(side);
+            pushHistory(board, side, m.from == -1 || m.removed != -1, rnd);
+        }
+    }
+
+    // ========================= CODEC =========================
+
+    private void checkCodec(Board board) {
+        long key = PositionCodec.encode(board);
+        Board decoded = PositionCodec.decode(key);
+        String text = PositionCodec.toText(board);
+        boolean ok = PositionCodec.isValid(key)
+                && Arrays.equals(decoded.getCells(), board.getCells())
+                && sameCounters(decoded, board)
+                && PositionCodec.encode(decoded) == key
+                && PositionCodec.textToKey(text) == key
+                && PositionCodec.keyToText(key).equals(text)
+                && PositionCodec.encode(PositionCodec.fromText(text)) == key;
+        record(0, ok, text);
+    }
+
+    private static boolean sameCounters(Board a, Board b) {
+        return a.getPhase() == b.getPhase()
+                && a.getPlacedCount(Constants.HUMAN) == b.getPlacedCount(Constants.HUMAN)
+                && a.getPlacedCount(Constants.CPU) == b.getPlacedCount(Constants.CPU)
+                && a.occupancyMask(Constants.HUMAN) == b.occupancyMask(Constants.HUMAN)
+                && a.occupancyMask(Constants.CPU) == b.occupancyMask(Constants.CPU);
+    }
+
+    // ========================= MOVES =========================
+
+    private void checkMoves(Board board, int side, List<Move> expected, Random rnd) {
+        String where = PositionCodec.toText(board) + " side=" + side;
+        int winner = Rules.completeMoves(board, side, scratch);
+        record(1, winner == referenceWinner(board, side, expected), where + " winner");
+        record(1, Rules.winner(board, side) == winner, where + " Rules.winner");
+
+        List<Integer> want = new ArrayList<>();
+        for (Move m : expected) want.add(MoveList.pack(m.from, m.to, m.removed));
+        List<Integer> got = new ArrayList<>();
+        for (int i = 0; i < scratch.size(); i++) got.add(scratch.get(i));
+        want.sort(null);
+        got.sort(null);
+        record(1, got.equals(want), where + " completeMoves");
+
+        long key = PositionCodec.encode(board);
+        for (int i = 0; i < scratch.size(); i++) {
+            board.makeMove(scratch.get(i), side);
+            board.unmakeMove(scratch.get(i), side);
+            if (PositionCodec.encode(board) != key) {
+                record(1, false, where + " unmakeMove " + MoveList.toMove(scratch.get(i)));
+                return;
+            }
+        }
+
+        // a move as a strategy may hand it in: any removal or none
+        if (expected.isEmpty()) return;
+        Move base = expected.get(rnd.nextInt(expected.size()));
+        Move asked = new Move(base.from, base.to, rnd.nextInt(26) - 1);
+        Move completed = Rules.complete(board, asked, side);
+        boolean legal = false;
+        for (Move m : expected) {
+            legal |= m.from == completed.from && m.to == completed.to && m.removed == completed.removed;
+        }
+        record(1, legal, where + " complete " + asked);
+    }
+
+    // every placement, slide or fly tried on a copy; a closed mill branches into each removal
+    static List<Move> referenceMoves(Board board, int side) {
+        List<Move> moves = new ArrayList<>();
+        if (!board.isPlacementPhase() && board.countPieces(side) <= 2) return moves;
+        int[] cells = board.getCells();
+        int opponent = Rules.opponentOf(side);
+        boolean flying = !board.isPlacementPhase() && board.countPieces(side) == 3;
+        for (int from = board.isPlacementPhase() ? -1 : 0; from < 24; from++) {
+            if (from >= 0 && cells[from] != side) continue;
+            for (int to = 0; to < 24; to++) {
+                if (cells[to] != Constants.EMPTY) continue;
+                if (from >= 0 && !flying && !Constants.ADJ.get(from).contains(to)) continue;
+                Board copy = board.clone();
+                copy.applyMove(new Move(from, to, -1), side);
+                if (!copy.formsMill(side, to) || copy.countPieces(opponent) == 0) {
+                    moves.add(new Move(from, to, -1));
+                    continue;
+                }
+                List<Integer> free = new ArrayList<>(), all = new ArrayList<>();
+                for (int p = 0; p < 24; p++) {
+                    if (cells[p] != opponent) continue;
+                    all.add(p);
+                    if (!copy.isPartOfMill(p, opponent)) free.add(p);
+                }
+                for (int p : free.isEmpty() ? all : free) moves.add(new Move(from, to, p));
+            }
+            if (from == -1) break;
+        }
+        return moves;
+    }
+
+    // side to move loses after placement with two pieces or no move
+    static int referenceWinner(Board board, int side, List<Move> moves) {
+        if (board.isPlacementPhase()) return Rules.ONGOING;
+        if (board.countPieces(side) <= 2 || moves.isEmpty()) return Rules.opponentOf(side);
+        return Rules.ONGOING;
+    }
+
+    // ========================= THREATS =========================
+
+    private void checkThreats(Board board, Random rnd) {
+        checkThreats(board);
+        if (board.isPlacementPhase()) return;
+        for (int side = Constants.HUMAN; side <= Constants.CPU; side++) {
+            if (board.countPieces(side) <= 3) continue;
+            Board flying = board.clone();
+            while (flying.countPieces(side) > 3) {
+                int pieces = flying.occupancyMask(side);
+                for (int skip = rnd.nextInt(Integer.bitCount(pieces)); skip > 0; skip--) pieces &= pieces - 1;
+                flying.removePiece(Integer.numberOfTrailingZeros(pieces));
+            }
+            checkThreats(flying);
+        }
+    }
+
+    private void checkThreats(Board board) {
+        ThreatMap threats = ThreatMap.of(board);
+        for (int side = Constants.HUMAN; side <= Constants.CPU; side++) {
+            int targets = 0, attackers = 0;
+            for (Move m : board.generateLegalMoves(side)) {
+                Board copy = board.clone();
+                copy.applyMove(m, side);
+                if (!copy.formsMill(side, m.to)) continue;
+                targets |= 1 << m.to;
+                if (m.from != -1) attackers |= 1 << m.from;
+            }
+            boolean ok = threats.targets(side) == targets
+                    && threats.attackers(side) == attackers
+                    && ThreatMap.millTargets(board, side) == targets
+                    && threats.hasThreat(side) == (targets != 0)
+                    && (threats.openPoints(side) & targets) == targets;
+            for (int p = 0; p < 24; p++) ok &= threats.blocks(p, side) == ((targets & (1 << p)) != 0);
+            record(2, ok, PositionCodec.toText(board) + " side=" + side);
+        }
+    }
+
+    // ========================= HISTORY =========================
+
+    private void pushHistory(Board board, int side, boolean irreversible, Random rnd) {
+        history.push(board, side);
+        // now and then undo and redo the push, as a search does
+        if (rnd.nextInt(8) == 0) {
+            history.pop();
+            history.push(board, side);
+        }
+        long key = PositionHistory.key(board, side);
+        int n = keys.size();
+        int rev = irreversible || n == 0 ? 0 : reversible.get(n - 1) + 1;
+        keys.add(key);
+        reversible.add(rev);
+        n++;
+
+        int count = 0;
+        for (int i = n - 1 - rev; i < n; i++) if (keys.get(i) == key) count++;
+        long probe = rnd.nextBoolean() ? keys.get(rnd.nextInt(n)) : PositionHistory.key(rnd.nextInt(1 << 24), 0, side);
+        boolean seen = false;
+        for (int i = n - 1 - rev; i < n; i++) seen |= keys.get(i) == probe;
+
+        boolean ok = history.size() == n
+                && history.topKey() == key
+                && history.repetitions() == count
+                && history.reversiblePlies() == rev
+                && history.contains(probe) == seen
+                && history.isThreefoldRepetition() == (count >= 3)
+                && history.isNoCaptureDraw() == (rev >= NO_CAPTURE_LIMIT)
+                && history.isDraw() == (count >= 3 || rev >= NO_CAPTURE_LIMIT);
+        record(3, ok, PositionCodec.toText(board) + " side=" + side + " ply=" + (n - 1));
+
+        if (rev >= NO_CAPTURE_LIMIT) {
+            limitReached = true;
+        } else if (rev == 0 && limitReached) {
+            resetsAfterLimit++;
+            limitReached = false;
+        }
+    }
+
+    /**
+     * Plays a slide of each side and both slides back, twice, from a fresh
+     * history at 'board': the start position is seen a second time after four
+     * plies and a third time after eight. False if 'board' has no such cycle.
+     */
+    private boolean checkRepetitionCycle(Board board, int side, List<Move> moves) {
+        int opponent = Rules.opponentOf(side);
+        for (Move first : moves) {
+            if (first.removed != -1) continue;
+            Board after = board.clone();
+            after.applyMove(first, side);
+            for (Move reply : referenceMoves(after, opponent)) {
+                Move[] cycle = {first, reply, new Move(first.to, first.from, -1), new Move(reply.to, reply.from, -1)};
+                if (reply.removed == -1 && isCycle(board, side, cycle)) {
+                    playCycle(board, side, cycle);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // every move of the cycle is a complete legal move without a removal
+    private static boolean isCycle(Board board, int side, Move[] cycle) {
+        Board b = board.clone();
+        for (Move m : cycle) {
+            boolean legal = false;
+            for (Move r : referenceMoves(b, side)) legal |= r.from == m.from && r.to == m.to && r.removed == -1;
+            if (!legal) return false;
+            b.applyMove(m, side);
+            side = Rules.opponentOf(side);
+        }
+        return true;
+    }
+
+    private void playCycle(Board board, int side, Move[] cycle) {
+        Board b = board.clone();
+        PositionHistory h = new PositionHistory();
+        h.push(b, side);
+        long start = h.topKey();
+        String where = PositionCodec.toText(board) + " side=" + side + " cycle";
+        for (int ply = 1; ply <= 2 * cycle.length; ply++) {
+            b.applyMove(cycle[(ply - 1) % cycle.length], side);
+            side = Rules.opponentOf(side);
+            h.push(b, side);
+            int expected = 1 + ply / cycle.length;
+            boolean ok = h.repetitions() == expected
+                    && h.contains(start)
+                    && h.reversiblePlies() == ply
+                    && h.isThreefoldRepetition() == (expected == 3)
+                    && (expected == 3 ? "threefold repetition".equals(h.drawReason()) : h.drawReason() == null);
+            record(3, ok, where + " ply=" + ply);
+        }
+    }
+
+    /**
+     * Different positions whose keys share a slot of PositionHistory's count
+     * filter must not count as repetitions of each other; only the scan can
+     * tell them apart.
+     */
+    private void checkFilterCollisions(Random rnd) {
+        for (int round = 0; round < 20; round++) {
+            int pieces = 3 + rnd.nextInt(7);
+            long[] same = new long[5];
+            same[0] = randomKey(rnd, pieces);
+            for (int i = 1; i < same.length; i++) {
+                long k;
+                do {
+                    k = randomKey(rnd, pieces);
+                } while (filterSlot(k) != filterSlot(same[0]) || k == same[0]);
+                same[i] = k;
+            }
+
+            // base, three colliders, base again; the last collider is never pushed
+            PositionHistory h = new PositionHistory();
+            long[] pushed = {same[0], same[1], same[2], same[3], same[0]};
+            int[] expected = {1, 1, 1, 1, 2};
+            for (int i = 0; i < pushed.length; i++) {
+                h.push(boardOf(pushed[i]), Constants.HUMAN);
+                boolean ok = h.topKey() == pushed[i]
+                        && h.repetitions() == expected[i]
+                        && h.contains(same[0])
+                        && !h.contains(same[4]);
+                record(3, ok, "filter collision " + PositionCodec.toText(boardOf(pushed[i])) + " push " + i);
+            }
+            h.pop();
+            record(3, h.repetitions() == 1 && h.contains(same[0]), "filter collision pop");
+        }
+    }
+
+    // same slot as PositionHistory's count filter
+    private static int filterSlot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 52);
+    }
+
+    // PositionHistory key of 'pieces' pieces a side on random points, human to move
+    private static long randomKey(Random rnd, int pieces) {
+        int human = 0, cpu = 0;
+        while (Integer.bitCount(human) < pieces) human |= 1 << rnd.nextInt(24);
+        while (Integer.bitCount(cpu) < pieces) {
+            int p = rnd.nextInt(24);
+            if ((human & (1 << p)) == 0) cpu |= 1 << p;
+        }
+        return PositionHistory.key(human, cpu, Constants.HUMAN);
+    }
+
+    // movement-phase board with the pieces of a PositionHistory key
+    private static Board boardOf(long historyKey) {
+        long key = 9L << PositionCodec.HUMAN_PLACED_SHIFT | 9L << PositionCodec.CPU_PLACED_SHIFT
+                | 1L << PositionCodec.PHASE_SHIFT;
+        for (int p = 0; p < 24; p++) {
+            if ((historyKey & (1L << p)) != 0) key |= (long) Constants.HUMAN << (p * PositionCodec.CELL_BITS);
+            if ((historyKey & (1L << (p + 24))) != 0) key |= (long) Constants.CPU << (p * PositionCodec.CELL_BITS);
+        }
+        return PositionCodec.decode(key);
+    }
+
+    // ========================= SEARCH =========================
+
+    // every root move scored by both engines, with the game so far and the no-capture
+    // limit reached on the leaves after a root slide and a reply slide
+    private void checkSearchAtLimit(Board board, int side) {
+        PositionHistory h = new PositionHistory();
+        h.copyFrom(history);
+        h.setNoCaptureLimit(h.reversiblePlies() + 2);
+        batched.setGameHistory(h);
+        unbatched.setGameHistory(h);
+        Player me = side == Constants.CPU ? Player.CPU : Player.HUMAN;
+        Player other = side == Constants.CPU ? Player.HUMAN : Player.CPU;
+        int[] a = rootScores(batched.analyze(board, me, other, Integer.MAX_VALUE));
+        int[] b = rootScores(unbatched.analyze(board, me, other, Integer.MAX_VALUE));
+        StringBuilder diff = new StringBuilder();
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) continue;
+            Move m = new Move(i / 24 - 1, i % 24, -1);
+            diff.append(' ').append(AnalysisLine.describe(m)).append(' ').append(a[i]).append('/').append(b[i]);
+        }
+        record(4, diff.length() == 0, PositionCodec.toText(board) + " side=" + side + " batched/unbatched:" + diff);
+    }
+
+    // score per from/to of the lines (a capture's removal may differ between equal scores)
+    private static int[] rootScores(List<AnalysisLine> lines) {
+        int[] scores = new int[25 * 24];
+        Arrays.fill(scores, Integer.MIN_VALUE);
+        for (AnalysisLine line : lines) scores[(line.move.from + 1) * 24 + line.move.to] = line.score;
+        return scores;
+    }
+
+    // ========================= PARALLEL =========================
+
+    public void checkParallel(Random rnd, int positions) {
+        GreedyStrategy greedy = new GreedyStrategy(), greedyPar = new GreedyStrategy();
+        greedy.setParallel(false);
+        greedyPar.setParallel(true);
+        DivideAndConquerStrategy dc = new DivideAndConquerStrategy(), dcPar = new DivideAndConquerStrategy();
+        dc.setParallel(false);
+        dcPar.setParallel(true);
+        for (int i = 0; i < positions; i++) {
+            // three cpu pieces flying, three to five human pieces: 3 x 16..18 moves
+            long key = randomKey(rnd, 3);
+            int human = (int) key & Constants.ALL_POINTS;
+            for (int extra = rnd.nextInt(3); extra > 0; ) {
+                int p = rnd.nextInt(24);
+                if (((key >>> 24) & (1 << p)) == 0 && (human & (1 << p)) == 0) {
+                    human |= 1 << p;
+                    extra--;
+                }
+            }
+            Board board = boardOf(PositionHistory.key(human, (int) (key >>> 24) & Constants.ALL_POINTS, Constants.CPU));
+            String where = PositionCodec.toText(board) + " moves=" + board.mobility(Constants.CPU);
+            record(5, sameMove(board, greedy, greedyPar), where + " greedy");
+            record(5, sameMove(board, dc, dcPar), where + " dc");
+        }
+    }
+
+    private static boolean sameMove(Board board, CpuStrategy serial, CpuStrategy parallel) {
+        Move a = serial.getBestMove(board, Player.CPU, Player.HUMAN);
+        Move b = parallel.getBestMove(board, Player.CPU, Player.HUMAN);
+        return a.from == b.from && a.to == b.to && a.removed == b.removed;
+    }
+
+    // ========================= REPORT =========================
+
+    private void record(int check, boolean ok, String detail) {
+        if (ok) {
+            passed[check]++;
+            return;
+        }
+        if (totalFailed() < MAX_REPORTED) System.out.println("FAIL " + names[check] + ": " + detail);
+        failed[check]++;
+    }
+
+    public long totalFailed() {
+        long n = 0;
+        for (long f : failed) n += f;
+        return n;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            sb.append(String.format("%-8s %10d passed %6d failed%n", names[i], passed[i], failed[i]));
+        }
+        sb.append(totalFailed() == 0 ? "OK" : "FAILED").append('\n');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,262 @@
+package morris.tuning;
+
+import morris.ai.EvalWeights;
+import morris.ai.LinearEvaluator;
+import morris.ai.NnueNetwork;
+import morris.model.Board;
+import morris.model.PositionCodec;
+import morris.util.Constants;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Trains an NnueNetwork on a PositionDataset of self-play records (written by
+ * TuneWeights --dataset, or a SelfPlayPipeline directory) and saves it for
+ * -Dmorris.nnue.
+ *
+ * The float network is trained with Adam on the logistic loss between
+ * sigmoid(output) and a target that blends the game result with the current
+ * backtracking evaluation: lambda * result + (1 - lambda) * sigmoid(scale * eval).
+ * The scale is the Texel fit of that evaluation on the same data, and the
+ * saved network reports output / scale, so its scores are in the units of the
+ * linear evaluation and WIN_SCORE keeps its meaning in the search.
+ *
+ * First-layer weights are clipped to [-CLIP, CLIP] while training so that they
+ * and the accumulator fit int16 after scaling by QA.
+ *
+ * Usage:
+ *   NnueTrainer --dataset data.bin [--hidden 32] [--epochs 30] [--batch 256]
+ *               [--lr 0.002] [--lambda 0.7] [--validation 0.1] [--seed 1]
+ *               [--threads N] [--out morris.nnue]
+ *
+ * --threads is the number of threads for the scale fit (default: one per
+ * core); the network itself is trained on a single thread.
+ */
+public class NnueTrainer {
+
+    private static final float CLIP = 2.0f;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPS = 1e-8;
+
+    private final int hidden;
+    private final int rows;
+    private final int[] inputs;     // MAX_ACTIVE slots per row
+    private final byte[] counts;
+    private final float[] targets;
+
+    // float network and Adam moments, flattened: w1 [INPUTS * hidden], b1, w2, b2
+    private final float[] params;
+    private final float[] grad;
+    private final float[] m;
+    private final float[] v;
+    private final int b1Off;
+    private final int w2Off;
+    private final int b2Off;
+    private long step;
+    private int[] order;
+    private int valid;
+
+    public NnueTrainer(PositionDataset data, int hidden, double scale, double lambda, long seed) {
+        this.hidden = hidden;
+        this.rows = data.size();
+        this.inputs = new int[rows * NnueNetwork.MAX_ACTIVE];
+        this.counts = new byte[rows];
+        this.targets = new float[rows];
+
+        LinearEvaluator linear = LinearEvaluator.backtracking(EvalWeights.global());
+        Board board = new Board();
+        int[] active = new int[NnueNetwork.MAX_ACTIVE];
+        for (int r = 0; r < rows; r++) {
+            PositionCodec.decodeInto(data.key(r), board);
+            int n = NnueNetwork.activeInputs(board, active);
+            System.arraycopy(active, 0, inputs, r * NnueNetwork.MAX_ACTIVE, n);
+            counts[r] = (byte) n;
+            double teacher = sigmoid(scale * linear.evaluate(board, Constants.CPU));
+            targets[r] = (float) (lambda * data.score(r) + (1 - lambda) * teacher);
+        }
+
+        b1Off = NnueNetwork.INPUTS * hidden;
+        w2Off = b1Off + hidden;
+        b2Off = w2Off + hidden;
+        params = new float[b2Off + 1];
+        grad = new float[params.length];
+        m = new float[params.length];
+        v = new float[params.length];
+        Random rnd = new Random(seed);
+        for (int i = 0; i < b1Off; i++) params[i] = (float) ((rnd.nextDouble() * 2 - 1) * 0.1);
+        for (int j = 0; j < hidden; j++) {
+            params[b1Off + j] = 0.5f;
+            params[w2Off + j] = (float) ((rnd.nextDouble() * 2 - 1) * 0.5);
+        }
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    // float forward pass of row r; fills h with the pre-activations
+    private double forward(int r, float[] h) {
+        System.arraycopy(params, b1Off, h, 0, hidden);
+        int base = r * NnueNetwork.MAX_ACTIVE;
+        for (int i = 0; i < counts[r]; i++) {
+            int off = inputs[base + i] * hidden;
+            for (int j = 0; j < hidden; j++) h[j] += params[off + j];
+        }
+        double y = params[b2Off];
+        for (int j = 0; j < hidden; j++) y += params[w2Off + j] * Math.min(1f, Math.max(0f, h[j]));
+        return y;
+    }
+
+    private static double loss(double y, double t) {
+        double p = Math.min(1 - 1e-7, Math.max(1e-7, sigmoid(y)));
+        return -(t * Math.log(p) + (1 - t) * Math.log(1 - p));
+    }
+
+    // one Adam step on the rows order[from..to)
+    private void trainBatch(int from, int to, double lr) {
+        Arrays.fill(grad, 0f);
+        float[] h = new float[hidden];
+        for (int k = from; k < to; k++) {
+            int r = order[k];
+            double y = forward(r, h);
+            float dy = (float) (sigmoid(y) - targets[r]);
+            grad[b2Off] += dy;
+            int base = r * NnueNetwork.MAX_ACTIVE;
+            for (int j = 0; j < hidden; j++) {
+                float hj = h[j];
+                grad[w2Off + j] += dy * Math.min(1f, Math.max(0f, hj));
+                if (hj <= 0f || hj >= 1f) continue;
+                float dh = dy * params[w2Off + j];
+                grad[b1Off + j] += dh;
+                for (int i = 0; i < counts[r]; i++) grad[inputs[base + i] * hidden + j] += dh;
+            }
+        }
+
+        step++;
+        double n = to - from;
+        double c1 = 1 - Math.pow(BETA1, step);
+        double c2 = 1 - Math.pow(BETA2, step);
+        for (int i = 0; i < params.length; i++) {
+            double g = grad[i] / n;
+            m[i] = (float) (BETA1 * m[i] + (1 - BETA1) * g);
+            v[i] = (float) (BETA2 * v[i] + (1 - BETA2) * g * g);
+            params[i] -= (float) (lr * (m[i] / c1) / (Math.sqrt(v[i] / c2) + EPS));
+        }
+        for (int i = 0; i < w2Off; i++) params[i] = Math.max(-CLIP, Math.min(CLIP, params[i]));
+    }
+
+    private double loss(int from, int to) {
+        float[] h = new float[hidden];
+        double sum = 0;
+        for (int k = from; k < to; k++) sum += loss(forward(order[k], h), targets[order[k]]);
+        return to > from ? sum / (to - from) : 0;
+    }
+
+    // validation loss of the quantized network, its scores scaled back by 'scale'
+    public double validationLoss(NnueNetwork net, PositionDataset data, double scale) {
+        short[] acc = new short[net.hidden()];
+        int[] active = new int[NnueNetwork.MAX_ACTIVE];
+        Board board = new Board();
+        double sum = 0;
+        for (int k = 0; k < valid; k++) {
+            int r = order[k];
+            PositionCodec.decodeInto(data.key(r), board);
+            net.refresh(board, acc, active);
+            sum += loss(net.output(acc) * scale, targets[r]);
+        }
+        return valid > 0 ? sum / valid : 0;
+    }
+
+    // the first 'validation' share of a seeded shuffle is held out, the rest is reshuffled every epoch
+    public void train(int epochs, int batch, double lr, double validation, long seed, PrintStream log) {
+        order = new int[rows];
+        for (int i = 0; i < rows; i++) order[i] = i;
+        Random rnd = new Random(seed);
+        for (int i = rows - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = order[i]; order[i] = order[j]; order[j] = t;
+        }
+        valid = (int) (rows * validation);
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            for (int i = rows - 1; i > valid; i--) {
+                int j = valid + rnd.nextInt(i - valid + 1);
+                int t = order[i]; order[i] = order[j]; order[j] = t;
+            }
+            for (int k = valid; k < rows; k += batch) trainBatch(k, Math.min(rows, k + batch), lr);
+            log.printf("epoch %d: train %.6f  validation %.6f%n",
+                    epoch, loss(valid, rows), loss(0, valid));
+        }
+    }
+
+    public NnueNetwork quantize(double scale) {
+        int qa = NnueNetwork.QA;
+        int qb = NnueNetwork.QB;
+        short[] w1 = new short[NnueNetwork.INPUTS * hidden];
+        short[] b1 = new short[hidden];
+        short[] w2 = new short[hidden];
+        for (int i = 0; i < w1.length; i++) w1[i] = (short) Math.round(params[i] * qa);
+        for (int j = 0; j < hidden; j++) {
+            b1[j] = (short) Math.round(params[b1Off + j] * qa);
+            w2[j] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(params[w2Off + j] * qb)));
+        }
+        int b2 = Math.round(params[b2Off] * qa * qb);
+        return new NnueNetwork(hidden, (int) Math.round(1 / scale), w1, b1, w2, b2);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String dataset = null, out = "morris.nnue";
+        int hidden = 32, epochs = 30, batch = 256, threads = Runtime.getRuntime().availableProcessors();
+        double lr = 0.002, lambda = 0.7, validation = 0.1;
+        long seed = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dataset": dataset = args[++i]; break;
+                case "--hidden": hidden = Integer.parseInt(args[++i]); break;
+                case "--epochs": epochs = Integer.parseInt(args[++i]); break;
+                case "--batch": batch = Integer.parseInt(args[++i]); break;
+                case "--lr": lr = Double.parseDouble(args[++i]); break;
+                case "--lambda": lambda = Double.parseDouble(args[++i]); break;
+                case "--validation": validation = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (dataset == null) {
+            System.err.println("--dataset is required (see TuneWeights --dataset)");
+            System.exit(2);
+        }
+
+        PositionDataset data = ShardReader.load(Paths.get(dataset));
+        System.out.printf("loaded %d positions from %s%n", data.size(), dataset);
+
+        // threads only speed up the scale fit
+        double scale;
+        try (TexelTuner tuner = new TexelTuner(TuningTarget.BACKTRACKING, data, threads)) {
+            List<String> keys = TuningTarget.BACKTRACKING.keys();
+            int[] w = new int[keys.size()];
+            EvalWeights weights = EvalWeights.global();
+            for (int j = 0; j < w.length; j++) w[j] = weights.get(keys.get(j));
+            scale = tuner.fitScale(w);
+        }
+        System.out.printf("evaluation scale %.6g%n", scale);
+
+        NnueTrainer trainer = new NnueTrainer(data, hidden, scale, lambda, seed);
+        trainer.train(epochs, batch, lr, validation, seed, System.out);
+
+        NnueNetwork net = trainer.quantize(scale);
+        System.out.printf("quantized validation %.6f%n", trainer.validationLoss(net, data, scale));
+        net.save(Paths.get(out));
+        System.out.println("wrote " + out);
+    }
+}
@@ -0,0 +1,86 @@
+package morris.tuning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Labelled positions for tuning, 9 bytes each: the PositionCodec key and the
+ * game result from the cpu side's point of view in half points (0 = loss,
+ * 1 = draw, 2 = win).
+ *
+ * File format (big endian): magic "MMDS", version, count, then count keys
+ * followed by count result bytes.
+ */
+public final class PositionDataset {
+
+    private static final int MAGIC = 0x4D4D4453; // "MMDS"
+    private static final int VERSION = 1;
+
+    public static final byte LOSS = 0;
+    public static final byte DRAW = 1;
+    public static final byte WIN = 2;
+
+    private long[] keys;
+    private byte[] results;
+    private int size;
+
+    public PositionDataset() {
+        this(1024);
+    }
+
+    public PositionDataset(int initialCapacity) {
+        keys = new long[Math.max(16, initialCapacity)];
+        results = new byte[keys.length];
+    }
+
+    public void add(long key, byte result) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            results = Arrays.copyOf(results, size * 2);
+        }
+        keys[size] = key;
+        results[size] = result;
+        size++;
+    }
+
+    public void addAll(PositionDataset other) {
+        for (int i = 0; i < other.size; i++) add(other.keys[i], other.results[i]);
+    }
+
+    public int size() { return size; }
+    public long key(int i) { return keys[i]; }
+    public byte result(int i) { return results[i]; }
+
+    // result as the expected score of the cpu side: 0, 0.5 or 1
+    public double score(int i) { return results[i] * 0.5; }
+
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) out.writeLong(keys[i]);
+            out.write(results, 0, size);
+        }
+    }
+
+    public static PositionDataset load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a position dataset: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported dataset version " + version + ": " + file);
+            int count = in.readInt();
+            PositionDataset data = new PositionDataset(count);
+            for (int i = 0; i < count; i++) data.keys[i] = in.readLong();
+            in.readFully(data.results, 0, count);
+            data.size = count;
+            return data;
+        }
+    }
+}
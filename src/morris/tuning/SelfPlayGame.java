@@ -0,0 +1,58 @@
+package morris.tuning;
+
+import morris.ai.CpuStrategy;
+import morris.model.Board;
+import morris.model.Move;
+import morris.model.Player;
+import morris.model.PositionHistory;
+import morris.model.Rules;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The game loop shared by SelfPlayPipeline and tools.CalibrateDifficulty: one
+ * game from the start position, human first, with random moves for the
+ * opening plies and the chooser's moves after them. The game ends on a win, a
+ * PositionHistory draw (threefold repetition or no capture) or the ply limit.
+ * Both strategies get the game's history, so their searches see the draws.
+ */
+public final class SelfPlayGame {
+
+    // picks the move of 'mover' in a position after the opening; the board must not be changed
+    public interface MoveChooser {
+        Move choose(Board board, Player mover, Player other, int ply);
+    }
+
+    private SelfPlayGame() {}
+
+    // returns the winner code, Rules.ONGOING for a draw or a game stopped at maxPlies
+    public static int play(CpuStrategy cpu, CpuStrategy human, int openingPlies, int maxPlies,
+                           Random rnd, MoveChooser chooser) {
+        Board board = new Board();
+        PositionHistory history = new PositionHistory();
+        Player mover = Player.HUMAN;
+        history.push(board, mover.code());
+        cpu.setGameHistory(history);
+        human.setGameHistory(history);
+
+        int winner = Rules.ONGOING;
+        for (int ply = 0; ply < maxPlies; ply++) {
+            Player other = mover == Player.HUMAN ? Player.CPU : Player.HUMAN;
+            winner = Rules.winner(board, mover.code());
+            if (winner != Rules.ONGOING || history.isDraw()) break;
+
+            Move m = ply < openingPlies ? randomMove(board, mover, rnd) : chooser.choose(board, mover, other, ply);
+            board.applyMove(m, mover.code());
+            history.push(board, other.code());
+            mover = other;
+        }
+        if (winner == Rules.ONGOING) winner = Rules.winner(board, mover.code());
+        return winner;
+    }
+
+    public static Move randomMove(Board board, Player mover, Random rnd) {
+        List<Move> moves = Rules.completeMoves(board, mover.code());
+        return moves.get(rnd.nextInt(moves.size()));
+    }
+}
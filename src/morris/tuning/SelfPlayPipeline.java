@@ -0,0 +1,229 @@
+package morris.tuning;
+
+import morris.ai.CpuStrategy;
+import morris.ai.SearchStats;
+import morris.model.Move;
+import morris.model.Player;
+import morris.model.PositionCodec;
+import morris.model.Rules;
+import morris.tools.ReplayHarness;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Self-play at scale into a ShardWriter directory: one record per position
+ * reached after the random opening, with the mover's search score and the
+ * final result, both from the cpu side's point of view.
+ *
+ * Worker threads (one per core by default) each play whole games with their
+ * own strategy instances and hand every finished game to a bounded queue; the
+ * calling thread is the only writer. A full queue blocks the workers, so memory
+ * stays at queue capacity times one game no matter how many games are played.
+ * Game i uses the seed seed + i; the order of games in the files depends on
+ * thread timing.
+ *
+ * Usage:
+ *   SelfPlayPipeline --out DIR [--games 1000] [--cpu bt] [--human bt] [--threads N]
+ *                    [--noise 0.1] [--opening 6] [--max-plies 200] [--seed 1]
+ *                    [--shard-records 1000000] [--queue 256]
+ *
+ * Reopening a directory appends to it; use a new --seed to get new games.
+ * TuneWeights plays its games through dataset(), which keeps the same
+ * records in memory instead. The game loop itself is SelfPlayGame.
+ */
+public final class SelfPlayPipeline {
+
+    private final ThreadLocal<CpuStrategy> cpuPlayer;
+    private final ThreadLocal<CpuStrategy> humanPlayer;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int openingPlies = 6;
+    private double noise = 0.1;
+    private int maxPlies = 200;
+    private long seed = 1;
+    private int queueCapacity = 256;
+
+    // sentinel a worker queues when it has no games left
+    private static final ByteBuffer DONE = ByteBuffer.allocate(0);
+
+    public SelfPlayPipeline(Supplier<CpuStrategy> cpu, Supplier<CpuStrategy> human) {
+        this.cpuPlayer = ThreadLocal.withInitial(cpu);
+        this.humanPlayer = ThreadLocal.withInitial(human);
+    }
+
+    public void setThreads(int threads) { this.threads = Math.max(1, threads); }
+    // plies played at random (and not recorded) before the strategies take over
+    public void setOpeningPlies(int plies) { this.openingPlies = Math.max(0, plies); }
+    // probability of playing a random move instead of the searched one
+    public void setNoise(double noise) { this.noise = noise; }
+    // games still running after this many plies are scored as draws
+    public void setMaxPlies(int maxPlies) { this.maxPlies = Math.max(1, Math.min(maxPlies, 0xFFFF)); }
+    public void setSeed(long seed) { this.seed = seed; }
+    // finished games waiting for the writer
+    public void setQueueCapacity(int games) { this.queueCapacity = Math.max(1, games); }
+
+    // plays 'games' games and appends their records to 'out'; returns the number of records written
+    public long run(long games, ShardWriter out) throws IOException, InterruptedException {
+        long before = out.totalRecords();
+        play(games, out::append);
+        out.commit();
+        return out.totalRecords() - before;
+    }
+
+    // plays 'games' games into memory: the key and result of every record, for TexelTuner
+    public PositionDataset dataset(long games) throws InterruptedException {
+        PositionDataset data = new PositionDataset();
+        try {
+            play(games, records -> {
+                for (int at = 0; at < records.limit(); at += ShardWriter.RECORD_BYTES) {
+                    // result byte sits after key and score
+                    data.add(records.getLong(at), records.get(at + 12));
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return data;
+    }
+
+    // finished games, one buffer of records each, on the calling thread
+    private interface GameSink {
+        void accept(ByteBuffer records) throws IOException;
+    }
+
+    private void play(long games, GameSink sink) throws IOException, InterruptedException {
+        BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong next = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "selfplay");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int w = 0; w < threads; w++) {
+                pool.execute(() -> {
+                    try {
+                        for (long g; failure.get() == null && (g = next.getAndIncrement()) < games; ) {
+                            queue.put(playGame(seed + g));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        try {
+                            queue.put(DONE);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            for (int running = threads; running > 0; ) {
+                ByteBuffer game = queue.take();
+                if (game == DONE) running--;
+                else sink.accept(game);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) throw new IllegalStateException("Self-play game failed", failure.get());
+    }
+
+    private ByteBuffer playGame(long gameSeed) {
+        Random rnd = new Random(gameSeed);
+        CpuStrategy cpu = cpuPlayer.get();
+        CpuStrategy human = humanPlayer.get();
+        ByteBuffer records = ByteBuffer.allocate(Math.max(0, maxPlies - openingPlies) * ShardWriter.RECORD_BYTES);
+
+        int winner = SelfPlayGame.play(cpu, human, openingPlies, maxPlies, rnd, (board, mover, other, ply) -> {
+            CpuStrategy s = mover == Player.CPU ? cpu : human;
+            Move searched = s.getBestMove(board, mover, other);
+            SearchStats stats = s.getLastStats();
+            int flags = mover == Player.CPU ? ShardWriter.FLAG_CPU_TO_MOVE : 0;
+            int score = 0;
+            if (stats.hasScore()) {
+                flags |= ShardWriter.FLAG_SCORED;
+                score = mover == Player.CPU ? stats.getScore() : -stats.getScore();
+            }
+            // result is filled in when the game is over
+            ShardWriter.putRecord(records, PositionCodec.encode(board), score, PositionDataset.DRAW, flags, ply);
+            return searched == null || rnd.nextDouble() < noise
+                    ? SelfPlayGame.randomMove(board, mover, rnd)
+                    : Rules.complete(board, searched, mover.code());
+        });
+
+        byte result = winner == Player.CPU.code() ? PositionDataset.WIN
+                : winner == Player.HUMAN.code() ? PositionDataset.LOSS
+                : PositionDataset.DRAW;
+        // result byte sits after key and score
+        for (int at = 12; at < records.position(); at += ShardWriter.RECORD_BYTES) records.put(at, result);
+        records.flip();
+        return records;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String dir = null, cpu = "bt", human = "bt";
+        long games = 1000, seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int opening = 6, maxPlies = 200, shardRecords = 1_000_000, queue = 256;
+        double noise = 0.1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out": dir = args[++i]; break;
+                case "--games": games = Long.parseLong(args[++i]); break;
+                case "--cpu": cpu = args[++i]; break;
+                case "--human": human = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--noise": noise = Double.parseDouble(args[++i]); break;
+                case "--opening": opening = Integer.parseInt(args[++i]); break;
+                case "--max-plies": maxPlies = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--shard-records": shardRecords = Integer.parseInt(args[++i]); break;
+                case "--queue": queue = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (dir == null) {
+            System.err.println("--out is required");
+            System.exit(2);
+        }
+
+        String cpuName = cpu, humanName = human;
+        SelfPlayPipeline pipeline = new SelfPlayPipeline(
+                () -> ReplayHarness.strategy(cpuName), () -> ReplayHarness.strategy(humanName));
+        pipeline.setThreads(threads);
+        pipeline.setNoise(noise);
+        pipeline.setOpeningPlies(opening);
+        pipeline.setMaxPlies(maxPlies);
+        pipeline.setSeed(seed);
+        pipeline.setQueueCapacity(queue);
+
+        Path out = Paths.get(dir);
+        long t0 = System.nanoTime();
+        long written;
+        try (ShardWriter writer = new ShardWriter(out, shardRecords)) {
+            written = pipeline.run(games, writer);
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("self-play: %d games, %d positions in %.1f s (%.0f positions/h), %d threads%n",
+                    games, written, seconds, written / Math.max(1e-9, seconds) * 3600, threads);
+            System.out.printf("%s: %d positions in %d games, %d shards%n",
+                    out, writer.totalRecords(), writer.totalGames(), writer.shardCount());
+        }
+    }
+}
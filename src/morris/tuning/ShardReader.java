@@ -0,0 +1,112 @@
+package morris.tuning;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the committed records of a ShardWriter directory, one buffer at a time,
+ * so memory does not grow with the data.
+ */
+public final class ShardReader {
+
+    private static final int BUFFER_RECORDS = 4096;
+
+    public interface Visitor {
+        void record(long key, int score, byte result, int flags, int ply);
+    }
+
+    // one line of the index
+    static final class Entry {
+        final String name;
+        final long records;
+        final long games;
+
+        Entry(String name, long records, long games) {
+            this.name = name;
+            this.records = records;
+            this.games = games;
+        }
+    }
+
+    private ShardReader() {}
+
+    static List<Entry> index(Path dir) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Path file = dir.resolve(ShardWriter.INDEX);
+        if (!Files.exists(file)) return entries;
+        for (String raw : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            if (parts.length != 3) throw new IOException("Bad index line in " + file + ": " + line);
+            entries.add(new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+        }
+        return entries;
+    }
+
+    // committed records of all shards
+    public static long count(Path dir) throws IOException {
+        long n = 0;
+        for (Entry e : index(dir)) n += e.records;
+        return n;
+    }
+
+    public static void read(Path dir, Visitor visitor) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_RECORDS * ShardWriter.RECORD_BYTES);
+        for (Entry e : index(dir)) {
+            Path file = dir.resolve(e.name);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(ShardWriter.HEADER_BYTES);
+                readFully(ch, header, file);
+                header.flip();
+                if (header.getInt() != ShardWriter.MAGIC) throw new IOException("Not a self-play shard: " + file);
+                int version = header.getInt();
+                if (version != ShardWriter.VERSION) throw new IOException("Unsupported shard version " + version + ": " + file);
+                if (header.getInt() != ShardWriter.RECORD_BYTES) throw new IOException("Unexpected record size: " + file);
+
+                for (long left = e.records; left > 0; ) {
+                    int n = (int) Math.min(left, BUFFER_RECORDS);
+                    buf.clear().limit(n * ShardWriter.RECORD_BYTES);
+                    readFully(ch, buf, file);
+                    buf.flip();
+                    for (int i = 0; i < n; i++) {
+                        long key = buf.getLong();
+                        int score = buf.getInt();
+                        byte result = buf.get();
+                        int flags = buf.get();
+                        int ply = buf.getShort() & 0xFFFF;
+                        visitor.record(key, score, result, flags, ply);
+                    }
+                    left -= n;
+                }
+            }
+        }
+    }
+
+    // keys and results for TexelTuner / NnueTrainer
+    public static PositionDataset dataset(Path dir) throws IOException {
+        long count = count(dir);
+        if (count > Integer.MAX_VALUE - 8) throw new IOException("Too many records for one dataset: " + count);
+        PositionDataset data = new PositionDataset((int) count);
+        read(dir, (key, score, result, flags, ply) -> data.add(key, result));
+        return data;
+    }
+
+    // a dataset file, or a shard directory
+    public static PositionDataset load(Path path) throws IOException {
+        return Files.isDirectory(path) ? dataset(path) : PositionDataset.load(path);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, Path file) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) throw new IOException("Truncated shard: " + file);
+        }
+    }
+}
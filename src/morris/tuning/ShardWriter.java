@@ -0,0 +1,144 @@
+package morris.tuning;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only self-play data in a directory of fixed-size-record shards.
+ *
+ * Shard file (big endian): magic "MMSP", version, record size, 0, then records
+ * of RECORD_BYTES each:
+ *   key      long   PositionCodec key of the position
+ *   score    int    search score for the cpu side, valid when FLAG_SCORED is set
+ *   result   byte   game result for the cpu side (PositionDataset LOSS/DRAW/WIN)
+ *   flags    byte   FLAG_CPU_TO_MOVE, FLAG_SCORED
+ *   ply      short  plies played before the position
+ *
+ * The index file lists every shard with its committed record and game counts.
+ * It is replaced atomically on each commit, which happens every commitRecords
+ * records, when a shard is full and on close; readers only read what it lists,
+ * so a crash loses at most the records since the last commit. Reopening a
+ * directory cuts the last shard back to its committed length and continues
+ * appending there. Games are never split across shards.
+ */
+public final class ShardWriter implements Closeable {
+
+    static final int MAGIC = 0x4D4D5350; // "MMSP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 16;
+
+    public static final int FLAG_CPU_TO_MOVE = 1;
+    public static final int FLAG_SCORED = 2;
+
+    static final String INDEX = "index";
+
+    private final Path dir;
+    private final int recordsPerShard;
+    private int commitRecords = 1 << 16;
+
+    // committed state of every shard, in order; the last one is being appended to
+    private final List<ShardReader.Entry> shards = new ArrayList<>();
+    private FileChannel channel;
+    private long shardRecords, shardGames;
+    private long pending; // records written since the last commit
+    private long totalRecords, totalGames;
+
+    public ShardWriter(Path dir, int recordsPerShard) throws IOException {
+        this.dir = dir;
+        this.recordsPerShard = Math.max(1, recordsPerShard);
+        Files.createDirectories(dir);
+        shards.addAll(ShardReader.index(dir));
+        for (ShardReader.Entry e : shards) {
+            totalRecords += e.records;
+            totalGames += e.games;
+        }
+        if (shards.isEmpty()) {
+            startShard();
+        } else {
+            ShardReader.Entry last = shards.get(shards.size() - 1);
+            channel = FileChannel.open(dir.resolve(last.name), StandardOpenOption.WRITE);
+            // drop anything written after the last commit
+            channel.truncate(HEADER_BYTES + last.records * RECORD_BYTES);
+            channel.position(channel.size());
+            shardRecords = last.records;
+            shardGames = last.games;
+        }
+    }
+
+    // records between index updates; smaller loses less on a crash, larger syncs less often
+    public void setCommitRecords(int records) { this.commitRecords = Math.max(1, records); }
+
+    public long totalRecords() { return totalRecords; }
+    public long totalGames() { return totalGames; }
+    public int shardCount() { return shards.size(); }
+
+    public static void putRecord(ByteBuffer out, long key, int score, byte result, int flags, int ply) {
+        out.putLong(key);
+        out.putInt(score);
+        out.put(result);
+        out.put((byte) flags);
+        out.putShort((short) ply);
+    }
+
+    // appends the records of one game (position to limit of 'records')
+    public void append(ByteBuffer records) throws IOException {
+        int count = records.remaining() / RECORD_BYTES;
+        if (shardRecords > 0 && shardRecords + count > recordsPerShard) {
+            commit();
+            channel.close();
+            startShard();
+        }
+        while (records.hasRemaining()) channel.write(records);
+        shardRecords += count;
+        shardGames++;
+        totalRecords += count;
+        totalGames++;
+        pending += count;
+        if (pending >= commitRecords) commit();
+    }
+
+    // makes everything appended so far visible to readers
+    public void commit() throws IOException {
+        channel.force(false);
+        ShardReader.Entry last = shards.get(shards.size() - 1);
+        shards.set(shards.size() - 1, new ShardReader.Entry(last.name, shardRecords, shardGames));
+        StringBuilder sb = new StringBuilder("# shard records games\n");
+        for (ShardReader.Entry e : shards) {
+            sb.append(e.name).append(' ').append(e.records).append(' ').append(e.games).append('\n');
+        }
+        Path tmp = Files.createTempFile(dir, INDEX, ".tmp");
+        Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, dir.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pending = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        commit();
+        channel.close();
+        channel = null;
+    }
+
+    private void startShard() throws IOException {
+        String name = String.format("shard-%05d.mmsp", shards.size());
+        channel = FileChannel.open(dir.resolve(name),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0).flip();
+        while (header.hasRemaining()) channel.write(header);
+        shards.add(new ShardReader.Entry(name, 0, 0));
+        shardRecords = 0;
+        shardGames = 0;
+    }
+}
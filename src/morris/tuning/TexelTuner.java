@@ -0,0 +1,195 @@
+package morris.tuning;
+
+import morris.ai.Features;
+import morris.model.Board;
+import morris.model.PositionCodec;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Texel-style fit of one TuningTarget's weights: minimise the mean squared
+ * difference between game results and sigmoid(scale * eval) over a dataset.
+ *
+ * The features of every position are extracted once into one short[] column
+ * per weight, so an error evaluation is a few array passes per chunk of rows.
+ * Chunks run on a fixed thread pool and their sums are added in chunk order,
+ * so the error (and the whole fit) does not depend on the thread count.
+ *
+ * The scale is fitted once for the starting weights and then held fixed, which
+ * keeps the tuned weights in the units of the search scores (WIN_SCORE etc.).
+ */
+public final class TexelTuner implements AutoCloseable {
+
+    private static final int MIN_CHUNK = 4096;
+
+    private final TuningTarget target;
+    private final int rows;
+    private final short[][] columns;
+    private final float[] labels;
+    private final ExecutorService pool;
+    private final int[][] chunks;
+
+    private double scale = 1.0 / 400;
+
+    public TexelTuner(TuningTarget target, PositionDataset data, int threads) {
+        this.target = target;
+        this.rows = data.size();
+        int k = target.keys().size();
+        this.columns = new short[k][rows];
+        this.labels = new float[rows];
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "texel");
+            t.setDaemon(true);
+            return t;
+        });
+
+        int count = Math.max(1, Math.min(Math.max(1, threads) * 4, (rows + MIN_CHUNK - 1) / MIN_CHUNK));
+        chunks = new int[count][2];
+        for (int c = 0; c < count; c++) {
+            chunks[c][0] = (int) ((long) rows * c / count);
+            chunks[c][1] = (int) ((long) rows * (c + 1) / count);
+        }
+
+        runChunks(c -> () -> {
+            Board board = new Board();
+            Features scratch = new Features();
+            int[] f = new int[k];
+            for (int r = chunks[c][0]; r < chunks[c][1]; r++) {
+                PositionCodec.decodeInto(data.key(r), board);
+                target.features(board, scratch, f);
+                for (int j = 0; j < k; j++) columns[j][r] = (short) f[j];
+                labels[r] = (float) data.score(r);
+            }
+            return 0.0;
+        });
+    }
+
+    public TuningTarget target() { return target; }
+    public int rows() { return rows; }
+    public double scale() { return scale; }
+    public void setScale(double scale) { this.scale = scale; }
+
+    // mean squared error of the weights (one per target key) at the current scale
+    public double error(int[] weights) {
+        return error(weights, scale);
+    }
+
+    private double error(int[] weights, double k) {
+        if (rows == 0) return 0;
+        double sum = 0;
+        for (double part : runChunks(c -> () -> chunkError(weights, k, chunks[c][0], chunks[c][1]))) sum += part;
+        return sum / rows;
+    }
+
+    private double chunkError(int[] weights, double k, int lo, int hi) {
+        int[] eval = new int[hi - lo];
+        for (int j = 0; j < weights.length; j++) {
+            int w = weights[j];
+            short[] col = columns[j];
+            for (int r = lo; r < hi; r++) eval[r - lo] += w * col[r];
+        }
+        double sum = 0;
+        for (int r = lo; r < hi; r++) {
+            double d = labels[r] - 1.0 / (1.0 + Math.exp(-k * eval[r - lo]));
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    // golden-section search of log10(scale) in [-5, 0] for the given weights
+    public double fitScale(int[] weights) {
+        double lo = -5, hi = 0;
+        double g = (Math.sqrt(5) - 1) / 2;
+        double x1 = hi - g * (hi - lo), x2 = lo + g * (hi - lo);
+        double e1 = error(weights, Math.pow(10, x1)), e2 = error(weights, Math.pow(10, x2));
+        for (int it = 0; it < 40; it++) {
+            if (e1 < e2) {
+                hi = x2; x2 = x1; e2 = e1;
+                x1 = hi - g * (hi - lo);
+                e1 = error(weights, Math.pow(10, x1));
+            } else {
+                lo = x1; x1 = x2; e1 = e2;
+                x2 = lo + g * (hi - lo);
+                e2 = error(weights, Math.pow(10, x2));
+            }
+        }
+        scale = Math.pow(10, (lo + hi) / 2);
+        return scale;
+    }
+
+    /**
+     * Coordinate descent: each pass tries weight +-step for every weight and keeps
+     * any change that lowers the error. A weight's step starts at 1/8 of its
+     * magnitude, doubles after a successful move and halves whenever neither
+     * direction helps; the fit stops after a pass without improvement once all
+     * steps are 1, or after maxPasses.
+     */
+    public int[] tune(int[] start, int maxPasses, PrintStream log) {
+        int[] best = start.clone();
+        double bestError = error(best);
+        int[] step = new int[best.length];
+        for (int j = 0; j < best.length; j++) step[j] = Math.max(1, Math.abs(best[j]) / 8);
+        if (log != null) log.printf("pass 0 error=%.6f %s%n", bestError, Arrays.toString(best));
+
+        for (int pass = 1; pass <= maxPasses; pass++) {
+            boolean improved = false;
+            boolean coarse = false;
+            for (int j = 0; j < best.length; j++) {
+                boolean moved = false;
+                for (int dir : new int[] {1, -1}) {
+                    int[] candidate = best.clone();
+                    candidate[j] += dir * step[j];
+                    double e = error(candidate);
+                    if (e < bestError) {
+                        best = candidate;
+                        bestError = e;
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    improved = true;
+                    step[j] *= 2;
+                } else {
+                    step[j] = Math.max(1, step[j] / 2);
+                }
+                if (step[j] > 1) coarse = true;
+            }
+            if (log != null) log.printf("pass %d error=%.6f %s%n", pass, bestError, Arrays.toString(best));
+            if (!improved && !coarse) break;
+        }
+        return best;
+    }
+
+    private interface ChunkTask {
+        Callable<Double> forChunk(int chunk);
+    }
+
+    private List<Double> runChunks(ChunkTask task) {
+        List<Callable<Double>> calls = new ArrayList<>(chunks.length);
+        for (int c = 0; c < chunks.length; c++) calls.add(task.forChunk(c));
+        try {
+            List<Double> parts = new ArrayList<>(chunks.length);
+            for (Future<Double> f : pool.invokeAll(calls)) parts.add(f.get());
+            return parts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tuning interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning task failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package morris.tuning;
+
+import morris.ai.EvalWeights;
+import morris.tools.ReplayHarness;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning pipeline: label positions by parallel self-play (SelfPlayPipeline,
+ * kept in memory) or load a saved dataset, fit each target's weights with
+ * TexelTuner, and write a weight file for -Dmorris.weights.
+ *
+ * Usage:
+ *   TuneWeights [--target all|backtracking|dp|greedy] [--games 400] [--threads N]
+ *               [--cpu greedy] [--human greedy] [--noise 0.1] [--opening 6]
+ *               [--max-plies 200] [--seed 1] [--dataset data.bin] [--passes 30]
+ *               [--out weights.properties]
+ *
+ * With --dataset, an existing file or SelfPlayPipeline directory is loaded
+ * instead of playing games, and a missing file is written after self-play. Tuning starts from the weights in
+ * effect (defaults or -Dmorris.weights) and the output contains every weight.
+ */
+public class TuneWeights {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String targetName = "all";
+        int games = 400, threads = Runtime.getRuntime().availableProcessors();
+        String cpu = "greedy", human = "greedy";
+        double noise = 0.1;
+        int opening = 6, maxPlies = 200, passes = 30;
+        long seed = 1;
+        String dataset = null, out = "weights.properties";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--target": targetName = args[++i]; break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--cpu": cpu = args[++i]; break;
+                case "--human": human = args[++i]; break;
+                case "--noise": noise = Double.parseDouble(args[++i]); break;
+                case "--opening": opening = Integer.parseInt(args[++i]); break;
+                case "--max-plies": maxPlies = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--dataset": dataset = args[++i]; break;
+                case "--passes": passes = Integer.parseInt(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        List<TuningTarget> targets = new ArrayList<>();
+        if (targetName.equalsIgnoreCase("all")) targets.addAll(List.of(TuningTarget.values()));
+        else targets.add(TuningTarget.of(targetName));
+
+        PositionDataset data;
+        Path datasetPath = dataset == null ? null : Paths.get(dataset);
+        if (datasetPath != null && Files.exists(datasetPath)) {
+            data = ShardReader.load(datasetPath);
+            System.out.printf("loaded %d positions from %s%n", data.size(), datasetPath);
+        } else {
+            String cpuName = cpu, humanName = human;
+            SelfPlayPipeline pipeline = new SelfPlayPipeline(
+                    () -> ReplayHarness.strategy(cpuName), () -> ReplayHarness.strategy(humanName));
+            pipeline.setThreads(threads);
+            pipeline.setNoise(noise);
+            pipeline.setOpeningPlies(opening);
+            pipeline.setMaxPlies(maxPlies);
+            pipeline.setSeed(seed);
+            long t0 = System.nanoTime();
+            data = pipeline.dataset(games);
+            System.out.printf("self-play: %d games, %d positions in %.1f s%n",
+                    games, data.size(), (System.nanoTime() - t0) / 1e9);
+            if (datasetPath != null) data.save(datasetPath);
+        }
+
+        EvalWeights weights = EvalWeights.global();
+        StringBuilder comment = new StringBuilder("Texel-tuned on " + data.size() + " positions");
+        for (TuningTarget target : targets) {
+            try (TexelTuner tuner = new TexelTuner(target, data, threads)) {
+                List<String> keys = target.keys();
+                int[] start = new int[keys.size()];
+                for (int j = 0; j < start.length; j++) start[j] = weights.get(keys.get(j));
+
+                double scale = tuner.fitScale(start);
+                double before = tuner.error(start);
+                System.out.printf("%s: scale=%.6g keys=%s%n", target.prefix(), scale, keys);
+                int[] tuned = tuner.tune(start, passes, System.out);
+                double after = tuner.error(tuned);
+
+                for (int j = 0; j < tuned.length; j++) weights = weights.with(keys.get(j), tuned[j]);
+                comment.append(String.format("%n%s: error %.6f -> %.6f (scale %.6g)", target.prefix(), before, after, scale));
+            }
+        }
+
+        weights.save(Paths.get(out), comment.toString());
+        System.out.println("wrote " + out);
+    }
+}
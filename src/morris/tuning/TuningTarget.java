@@ -0,0 +1,54 @@
+package morris.tuning;
+
+import morris.ai.FeatureExtractor;
+import morris.ai.Features;
+import morris.ai.LinearEvaluator;
+import morris.model.Board;
+import morris.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tunable part of one strategy's evaluation: the LinearEvaluator terms of
+ * that strategy, whose feature values (taken from the cpu side's point of view)
+ * are the coefficients of the weights being fitted.
+ *
+ * GREEDY scores moves, not positions; only its position terms are tuned here.
+ * Its mill, block and degree bonuses depend on the move played and keep their
+ * configured values.
+ */
+public enum TuningTarget {
+
+    BACKTRACKING("backtracking", LinearEvaluator.BACKTRACKING),
+    DP("dp", LinearEvaluator.DP),
+    GREEDY("greedy", LinearEvaluator.GREEDY);
+
+    private final String prefix;
+    private final List<LinearEvaluator.Term> terms;
+    private final List<String> keys;
+
+    TuningTarget(String prefix, List<LinearEvaluator.Term> terms) {
+        this.prefix = prefix;
+        this.terms = terms;
+        List<String> keys = new ArrayList<>();
+        for (LinearEvaluator.Term t : terms) keys.add(t.key);
+        this.keys = List.copyOf(keys);
+    }
+
+    public String prefix() { return prefix; }
+    public List<String> keys() { return keys; }
+
+    // one value per key, same order; 'scratch' is overwritten
+    void features(Board b, Features scratch, int[] out) {
+        FeatureExtractor.extract(b, scratch);
+        for (int j = 0; j < out.length; j++) out[j] = terms.get(j).value(scratch, Player.CPU.code());
+    }
+
+    public static TuningTarget of(String name) {
+        for (TuningTarget t : values()) {
+            if (t.prefix.equalsIgnoreCase(name)) return t;
+        }
+        throw new IllegalArgumentException("Unknown tuning target: " + name);
+    }
+}
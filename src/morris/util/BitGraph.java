@@ -0,0 +1,89 @@
+package morris.util;
+
+/**
+ * Graph primitives over Constants.ADJ on 24-bit point masks (bit i = point i).
+ *
+ * Every edge (a, b) with a < b joins two points whose indices differ by one of
+ * eight distances, so the edges are stored as one mask of lower endpoints per
+ * distance. A whole set of points then moves to its neighbours with eight
+ * shift pairs instead of a loop over its points, and nothing allocates.
+ */
+public final class BitGraph {
+
+    private static final int[] SHIFTS;
+    private static final int[] LOWS;   // LOWS[k]: points a with an edge (a, a + SHIFTS[k])
+
+    static {
+        int[] low = new int[24];
+        for (int a = 0; a < 24; a++) {
+            for (int b : Constants.ADJ.get(a)) {
+                if (b > a) low[b - a] |= 1 << a;
+            }
+        }
+        int count = 0;
+        for (int d = 1; d < 24; d++) if (low[d] != 0) count++;
+        SHIFTS = new int[count];
+        LOWS = new int[count];
+        int k = 0;
+        for (int d = 1; d < 24; d++) {
+            if (low[d] == 0) continue;
+            SHIFTS[k] = d;
+            LOWS[k] = low[d];
+            k++;
+        }
+    }
+
+    private BitGraph() {}
+
+    // points adjacent to at least one point of mask
+    public static int neighbors(int mask) {
+        int out = 0;
+        for (int k = 0; k < SHIFTS.length; k++) {
+            int d = SHIFTS[k], low = LOWS[k];
+            out |= (mask & low) << d | (mask >>> d) & low;
+        }
+        return out;
+    }
+
+    // points of 'within' connected to 'seed' through points of 'within'
+    public static int fill(int seed, int within) {
+        int group = seed & within;
+        while (true) {
+            int grown = (group | neighbors(group)) & within;
+            if (grown == group) return group;
+            group = grown;
+        }
+    }
+
+    // size of the largest connected group of points in mask
+    public static int largestCluster(int mask) {
+        int best = 0;
+        for (int left = mask; left != 0; ) {
+            int group = fill(left & -left, left);
+            left &= ~group;
+            best = Math.max(best, Integer.bitCount(group));
+        }
+        return best;
+    }
+
+    // pieces of 'own' without an empty neighbour
+    public static int blocked(int own, int empty) {
+        return own & ~neighbors(empty);
+    }
+
+    // pieces of 'own' with at least one empty neighbour
+    public static int movable(int own, int empty) {
+        return own & neighbors(empty);
+    }
+
+    // number of (own piece, empty neighbour) pairs: the stepping moves of 'own'
+    public static int steps(int own, int empty) {
+        int n = 0;
+        for (int k = 0; k < SHIFTS.length; k++) {
+            int d = SHIFTS[k], low = LOWS[k];
+            // piece on the low end and empty high end, or the reverse; the two sets are disjoint
+            n += Integer.bitCount(low & (own & empty >>> d | empty & own >>> d));
+        }
+        return n;
+    }
+}
@@ -50,8 +50,54 @@ public class Constants {
         {1,4,7},{16,19,22},{9,10,11},{12,13,14} // last two are center row/col like mills
     };
 
+    // MILLS as 24-bit masks (bit i = point i)
+    public static final int[] MILL_MASKS = createMillMasks();
+
+    // indices into MILLS of the two mills through each point
+    public static final int[][] POINT_MILLS = createPointMills();
+
+    // ADJ as 24-bit masks, and the mask of all points
+    public static final int[] ADJ_MASKS = createAdjMasks();
+    public static final int ALL_POINTS = (1 << 24) - 1;
+
+    private static int[] createMillMasks() {
+        int[] masks = new int[MILLS.length];
+        for (int m = 0; m < MILLS.length; m++) {
+            for (int idx : MILLS[m]) masks[m] |= 1 << idx;
+        }
+        return masks;
+    }
+
+    private static int[] createAdjMasks() {
+        int[] masks = new int[24];
+        for (int i = 0; i < 24; i++) {
+            for (int nb : ADJ.get(i)) masks[i] |= 1 << nb;
+        }
+        return masks;
+    }
+
+    private static int[][] createPointMills() {
+        int[][] pm = new int[24][2];
+        int[] found = new int[24];
+        for (int m = 0; m < MILLS.length; m++) {
+            for (int idx : MILLS[m]) pm[idx][found[idx]++] = m;
+        }
+        return pm;
+    }
+
     // rings used for D&C evaluation (outer, middle, inner)
     public static final List<Integer> OUTER_RING = Arrays.asList(0,1,2,14,23,22,21,9);
     public static final List<Integer> MIDDLE_RING = Arrays.asList(3,4,5,13,20,19,18,10);
     public static final List<Integer> INNER_RING = Arrays.asList(6,7,8,12,17,16,15,11);
+
+    // the rings as 24-bit masks
+    public static final int OUTER_RING_MASK = listMask(OUTER_RING);
+    public static final int MIDDLE_RING_MASK = listMask(MIDDLE_RING);
+    public static final int INNER_RING_MASK = listMask(INNER_RING);
+
+    private static int listMask(List<Integer> points) {
+        int mask = 0;
+        for (int idx : points) mask |= 1 << idx;
+        return mask;
+    }
 }